@@ -9,28 +9,48 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResultDto;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingListEntry;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.utils.IdempotencyCache;
+import ru.practicum.shareit.utils.PageCursor;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 @Validated
-@ComponentScan(basePackageClasses = BookingMapper.class)
+@ComponentScan(basePackageClasses = {BookingMapper.class, IdempotencyCache.class})
 public class BookingController {
+    private static final int BATCH_MAX_SIZE = 100;
+
     private final BookingService service;
     private final BookingMapper mapper;
+    private final IdempotencyCache idempotencyCache;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookingResponseDto create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                     @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                                     String idempotencyKey,
                                      @Validated @RequestBody BookingRequestDto bookingRequestDto) {
-        log.info("POST /bookings with body {} and X-Sharer-User-Id={} ", bookingRequestDto, userId);
-        return mapper.toResponseDto(service.createBooking(mapper.toBooking(bookingRequestDto),
-                userId, bookingRequestDto.getItemId()));
+        log.info("POST /bookings with body {} and X-Sharer-User-Id={} Idempotency-Key={} ",
+                bookingRequestDto, userId, idempotencyKey);
+        return idempotencyCache.execute("POST /bookings", userId, idempotencyKey, bookingRequestDto,
+                () -> mapper.toResponseDto(service.createBooking(mapper.toBooking(bookingRequestDto),
+                        userId, bookingRequestDto.getItemId())));
     }
 
     @PatchMapping("/{bookingId}")
@@ -42,6 +62,18 @@ public class BookingController {
         return mapper.toResponseDto(service.updateStatus(userId, bookingId, approved));
     }
 
+    @PatchMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BookingStatusUpdateResultDto> updateStatuses(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                             @RequestBody
+                                                             @NotEmpty(message = "Список бронирований не должен быть пустым")
+                                                             @Size(max = BATCH_MAX_SIZE, message = "Список бронирований"
+                                                                     + " не должен быть длиннее " + BATCH_MAX_SIZE)
+                                                             List<@Valid BookingStatusUpdateDto> updates) {
+        log.info("PATCH /bookings/batch with body {} and X-Sharer-User-Id={} ", updates, userId);
+        return mapper.toStatusUpdateResultDto(service.updateStatuses(userId, mapper.toStatusUpdate(updates)));
+    }
+
     @GetMapping("/{bookingId}")
     @ResponseStatus(HttpStatus.OK)
     public BookingResponseDto getById(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -55,10 +87,18 @@ public class BookingController {
     public List<BookingResponseDto> getAllByUser(@RequestHeader("X-Sharer-User-Id") long userId,
                                                  @RequestParam(defaultValue = "ALL") String state,
                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                 @RequestParam(defaultValue = "20") @Positive int size) {
-        log.info("GET /bookings/?state={}&from={{}}&size={{}} and X-Sharer-User-Id={} ",
-                state, userId, from, size);
-        return mapper.toResponseDto(service.getAllByUser(userId, state, from, size));
+                                                 @RequestParam(defaultValue = "20") @Positive int size,
+                                                 @RequestParam(required = false) String after,
+                                                 HttpServletResponse response) {
+        log.info("GET /bookings/?state={}&from={{}}&size={{}}&after={{}} and X-Sharer-User-Id={} ",
+                state, from, size, after, userId);
+        List<BookingListEntry> bookings = after == null
+                ? service.getAllByUser(userId, state, from, size)
+                : service.getAllByUser(userId, state, PageCursor.decode(after), size);
+        // booker CURRENT pages are ordered by end, so their cursor is keyed by end too
+        setNextCursor(response, bookings, size,
+                State.CURRENT.name().equals(state) ? BookingListEntry::getEnd : BookingListEntry::getStart);
+        return mapper.toListResponseDto(bookings);
     }
 
     @GetMapping("/owner")
@@ -66,9 +106,37 @@ public class BookingController {
     public List<BookingResponseDto> getAllByOwnerItems(@RequestHeader("X-Sharer-User-Id") long userId,
                                                        @RequestParam(defaultValue = "ALL") String state,
                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "20") @Positive int size) {
-        log.info("GET /bookings/owner?state={}&from={{}}&size={{}} and X-Sharer-User-Id={} ",
-                from, size, state, userId);
-        return mapper.toResponseDto(service.getAllByOwnerItems(userId, state, from, size));
+                                                       @RequestParam(defaultValue = "20") @Positive int size,
+                                                       @RequestParam(required = false) String after,
+                                                       HttpServletResponse response) {
+        log.info("GET /bookings/owner?state={}&from={{}}&size={{}}&after={{}} and X-Sharer-User-Id={} ",
+                state, from, size, after, userId);
+        List<BookingListEntry> bookings = after == null
+                ? service.getAllByOwnerItems(userId, state, from, size)
+                : service.getAllByOwnerItems(userId, state, PageCursor.decode(after), size);
+        setNextCursor(response, bookings, size, BookingListEntry::getStart);
+        return mapper.toListResponseDto(bookings);
+    }
+
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<State, Long> getStatsByUser(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("GET /bookings/stats and X-Sharer-User-Id={} ", userId);
+        return service.getStatsByUser(userId);
+    }
+
+    @GetMapping("/owner/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<State, Long> getStatsByOwnerItems(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("GET /bookings/owner/stats and X-Sharer-User-Id={} ", userId);
+        return service.getStatsByOwnerItems(userId);
+    }
+
+    private void setNextCursor(HttpServletResponse response, List<BookingListEntry> bookings, int size,
+                               Function<BookingListEntry, LocalDateTime> key) {
+        if (bookings.size() == size) {
+            BookingListEntry last = bookings.get(size - 1);
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(key.apply(last), last.getId()).encode());
+        }
     }
 }
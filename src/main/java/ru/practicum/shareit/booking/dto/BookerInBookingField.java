@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookerInBookingField {
+    private long id;
+}
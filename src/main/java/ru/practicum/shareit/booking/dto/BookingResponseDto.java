@@ -3,8 +3,6 @@ package ru.practicum.shareit.booking.dto;
 import lombok.Builder;
 import lombok.Data;
 import ru.practicum.shareit.booking.enums.Status;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
 import javax.validation.constraints.Future;
 import javax.validation.constraints.FutureOrPresent;
 import java.time.LocalDateTime;
@@ -17,7 +15,7 @@ public class BookingResponseDto {
     private LocalDateTime start;
     @Future
     private LocalDateTime end;
-    private Item item;
-    private User booker;
+    private ItemInBookingField item;
+    private BookerInBookingField booker;
     private Status status;
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+public class BookingStatusUpdateDto {
+    @NotNull(message = "bookingId не должен быть null")
+    private Long bookingId;
+    @NotNull(message = "approved не должен быть null")
+    private Boolean approved;
+}
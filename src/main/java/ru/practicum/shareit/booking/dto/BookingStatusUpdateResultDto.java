@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.enums.Status;
+
+@Data
+@Builder
+public class BookingStatusUpdateResultDto {
+    private long bookingId;
+    private Status status;
+    private String error;
+}
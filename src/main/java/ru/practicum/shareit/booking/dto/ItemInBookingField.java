@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class ItemInBookingField {
+    private long id;
+    private String name;
+}
@@ -1,16 +1,31 @@
 package ru.practicum.shareit.booking.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResultDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.model.BookingStatusUpdate;
+import ru.practicum.shareit.booking.model.BookingStatusUpdateResult;
 import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface BookingMapper {
     BookingResponseDto toResponseDto(Booking booking);
 
-    List<BookingResponseDto> toResponseDto(List<Booking> booking);
+    @Mapping(target = "item.id", source = "itemId")
+    @Mapping(target = "item.name", source = "itemName")
+    @Mapping(target = "booker.id", source = "bookerId")
+    BookingResponseDto toResponseDto(BookingListEntry entry);
+
+    List<BookingResponseDto> toListResponseDto(List<BookingListEntry> entries);
 
     Booking toBooking(BookingRequestDto bookingRequestDto);
+
+    List<BookingStatusUpdate> toStatusUpdate(List<BookingStatusUpdateDto> updates);
+
+    List<BookingStatusUpdateResultDto> toStatusUpdateResultDto(List<BookingStatusUpdateResult> results);
 }
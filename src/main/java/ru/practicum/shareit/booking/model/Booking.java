@@ -32,13 +32,15 @@ public class Booking {
     @Column(name = "end_date")
     private LocalDateTime end;
     @NotNull(message = "item не должна быть null")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "id")
     private Item item;
     @NotNull(message = "booker не должен быть null")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", referencedColumnName = "id")
     private User booker;
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Version
+    private int version;
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingDeadline {
+    private long bookingId;
+    private LocalDateTime start;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.enums.Status;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingListEntry {
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private long itemId;
+    private String itemName;
+    private long bookerId;
+    private Status status;
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, status, version) " +
+            "SELECT id, start_date, end_date, item_id, booker_id, status, version " +
+            "FROM bookings " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids);
+
+    boolean existsByBookerIdAndItemIdAndEndBefore(long bookerId, long itemId, LocalDateTime end);
+
+    @Query("select b " +
+            "from ArchivedBooking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.item.id in :itemIds " +
+            "and b.status = :status " +
+            "and b.start = (" +
+            "select max(lb.start) " +
+            "from ArchivedBooking as lb " +
+            "where lb.item.id = b.item.id " +
+            "and lb.status = :status " +
+            "and lb.start < :now)")
+    List<ArchivedBooking> findLastByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                            @Param("status") Status status,
+                                            @Param("now") LocalDateTime now);
+
+    @Query("select b " +
+            "from ArchivedBooking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.id = :id")
+    Optional<ArchivedBooking> findWithItemAndBookerById(@Param("id") long id);
+}
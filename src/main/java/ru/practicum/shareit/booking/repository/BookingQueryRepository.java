@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.utils.PageCursor;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface BookingQueryRepository {
+    Slice<BookingListEntry> findAllByState(Role role, long userId, State state, LocalDateTime now, Pageable pageable);
+
+    List<BookingListEntry> findAllByStateAfter(Role role, long userId, State state, LocalDateTime now,
+                                               PageCursor after, int size);
+
+    Map<State, Long> countByState(Role role, long userId, LocalDateTime now);
+}
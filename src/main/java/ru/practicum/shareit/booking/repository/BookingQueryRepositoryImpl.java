@@ -0,0 +1,210 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.utils.PageCursor;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    private static final Set<State> ARCHIVE_STATES =
+            EnumSet.of(State.ALL, State.PAST, State.WAITING, State.REJECTED, State.EXPIRED);
+    private static final String DEFAULT_SORT_KEY = "start";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // hot rows come first and the archive continues after them, so a long-running hot booking
+    // stays ahead of archived bookings that started later
+    @Override
+    public Slice<BookingListEntry> findAllByState(Role role, long userId, State state, LocalDateTime now,
+                                         Pageable pageable) {
+        int offset = (int) pageable.getOffset();
+        int size = pageable.getPageSize();
+        String sortKey = sortKey(role, state);
+        List<BookingListEntry> bookings =
+                fetch(Booking.class, role, userId, state, now, null, sortKey, offset, size + 1);
+        if (bookings.size() <= size && ARCHIVE_STATES.contains(state)) {
+            long hotCount = bookings.isEmpty() && offset > 0
+                    ? count(Booking.class, role, userId, state, now)
+                    : offset + bookings.size();
+            bookings = new ArrayList<>(bookings);
+            bookings.addAll(fetch(ArchivedBooking.class, role, userId, state, now, null, sortKey,
+                    (int) Math.max(0, offset - hotCount), size + 1 - bookings.size()));
+        }
+        boolean hasNext = bookings.size() > size;
+        return new SliceImpl<>(hasNext ? bookings.subList(0, size) : bookings, pageable, hasNext);
+    }
+
+    @Override
+    public List<BookingListEntry> findAllByStateAfter(Role role, long userId, State state, LocalDateTime now,
+                                             PageCursor after, int size) {
+        String sortKey = sortKey(role, state);
+        if (!ARCHIVE_STATES.contains(state)) {
+            return fetch(Booking.class, role, userId, state, now, after, sortKey, 0, size);
+        }
+        if (after != null && isArchived(after)) {
+            return fetch(ArchivedBooking.class, role, userId, state, now, after, sortKey, 0, size);
+        }
+        List<BookingListEntry> bookings =
+                fetch(Booking.class, role, userId, state, now, after, sortKey, 0, size);
+        if (bookings.size() < size) {
+            bookings = new ArrayList<>(bookings);
+            bookings.addAll(fetch(ArchivedBooking.class, role, userId, state, now, null, sortKey,
+                    0, size - bookings.size()));
+        }
+        return bookings;
+    }
+
+    @Override
+    public Map<State, Long> countByState(Role role, long userId, LocalDateTime now) {
+        String bookings = role == Role.OWNER
+                ? "SELECT b.start_date, b.end_date, b.status FROM %s AS b JOIN items AS i ON i.id = b.item_id "
+                + "WHERE i.owner_id = :userId"
+                : "SELECT b.start_date, b.end_date, b.status FROM %s AS b WHERE b.booker_id = :userId";
+        String from = " FROM (" + String.format(bookings, "bookings") + " UNION ALL "
+                + String.format(bookings, "bookings_archive") + ") AS b";
+        StringJoiner counts = new StringJoiner(", ", "SELECT ", from);
+        for (State state : State.values()) {
+            String condition = buildStateCondition(state);
+            counts.add(condition == null
+                    ? "COUNT(*)"
+                    : "COALESCE(SUM(CASE WHEN " + condition + " THEN 1 ELSE 0 END), 0)");
+        }
+        Object[] row = (Object[]) entityManager.createNativeQuery(counts.toString())
+                .setParameter("userId", userId)
+                .setParameter("now", now)
+                .getSingleResult();
+        Map<State, Long> countsByState = new EnumMap<>(State.class);
+        for (State state : State.values()) {
+            countsByState.put(state, ((Number) row[state.ordinal()]).longValue());
+        }
+        return countsByState;
+    }
+
+    private static String buildStateCondition(State state) {
+        switch (state) {
+            case PAST:
+                return "b.start_date < :now AND b.end_date < :now";
+            case CURRENT:
+                return "b.start_date < :now AND b.end_date > :now";
+            case FUTURE:
+                return "b.start_date > :now";
+            case WAITING:
+            case REJECTED:
+            case EXPIRED:
+                return "b.status = '" + Status.valueOf(state.name()) + "'";
+            default:
+                return null;
+        }
+    }
+
+    // cursor pages seek on the same (key, id) pair the page is ordered by
+    private static String sortKey(Role role, State state) {
+        return role == Role.BOOKER && state == State.CURRENT ? "end" : DEFAULT_SORT_KEY;
+    }
+
+    private <T> CriteriaQuery<BookingListEntry> buildQuery(Class<T> type, Role role, long userId, State state,
+                                                           LocalDateTime now, PageCursor after, String sortKey) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingListEntry> query = cb.createQuery(BookingListEntry.class);
+        Root<T> booking = query.from(type);
+        Join<T, Item> item = booking.join("item");
+        return query.select(cb.construct(BookingListEntry.class, booking.get("id"), booking.get("start"),
+                        booking.get("end"), item.get("id"), item.get("name"), booking.get("booker").get("id"),
+                        booking.get("status")))
+                .where(buildPredicates(cb, booking, item, role, userId, state, now, after, sortKey))
+                .orderBy(cb.desc(booking.get(sortKey)), cb.desc(booking.get("id")));
+    }
+
+    private <T> List<BookingListEntry> fetch(Class<T> type, Role role, long userId, State state, LocalDateTime now,
+                                    PageCursor after, String sortKey, int first, int max) {
+        return entityManager.createQuery(buildQuery(type, role, userId, state, now, after, sortKey))
+                .setFirstResult(first)
+                .setMaxResults(max)
+                .getResultList();
+    }
+
+    private <T> long count(Class<T> type, Role role, long userId, State state, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> booking = query.from(type);
+        Join<T, Item> item = booking.join("item");
+        query.select(cb.count(booking))
+                .where(buildPredicates(cb, booking, item, role, userId, state, now, null, DEFAULT_SORT_KEY));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // a cursor on an archived row means the hot rows have already been read
+    private boolean isArchived(PageCursor after) {
+        return entityManager.createQuery("select count(a) from ArchivedBooking a where a.id = :id", Long.class)
+                .setParameter("id", after.getId())
+                .getSingleResult() > 0;
+    }
+
+    private <T> Predicate[] buildPredicates(CriteriaBuilder cb, Root<T> booking, Join<T, Item> item,
+                                            Role role, long userId, State state, LocalDateTime now,
+                                            PageCursor after, String sortKey) {
+        Path<LocalDateTime> key = booking.get(sortKey);
+        Path<Long> id = booking.get("id");
+        List<Predicate> predicates = new ArrayList<>();
+        if (role == Role.OWNER) {
+            predicates.add(cb.equal(item.get("owner").get("id"), userId));
+        } else {
+            predicates.add(cb.equal(booking.get("booker").get("id"), userId));
+        }
+        Predicate statePredicate = buildStatePredicate(cb, booking, state, now);
+        if (statePredicate != null) {
+            predicates.add(statePredicate);
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(key, after.getKey()),
+                    cb.and(cb.equal(key, after.getKey()), cb.lessThan(id, after.getId()))));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private <T> Predicate buildStatePredicate(CriteriaBuilder cb, Root<T> booking, State state, LocalDateTime now) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+        switch (state) {
+            case PAST:
+                return cb.and(cb.lessThan(start, now), cb.lessThan(end, now));
+            case CURRENT:
+                return cb.and(cb.lessThan(start, now), cb.greaterThan(end, now));
+            case FUTURE:
+                return cb.greaterThan(start, now);
+            case WAITING:
+                return cb.equal(booking.get("status"), Status.WAITING);
+            case REJECTED:
+                return cb.equal(booking.get("status"), Status.REJECTED);
+            case EXPIRED:
+                return cb.equal(booking.get("status"), Status.EXPIRED);
+            default:
+                return null;
+        }
+    }
+}
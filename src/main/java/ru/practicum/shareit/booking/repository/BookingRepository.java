@@ -1,89 +1,124 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDeadline;
 import ru.practicum.shareit.booking.enums.Status;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerIdOrderByStartDesc(long userId, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndEndBeforeOrderByStartDesc(
-            long userId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByEndDesc(
-            long userId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(
-            long userId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(
-            long userId, Status status, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueryRepository {
+    @Override
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    Optional<Booking> findById(Long id);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.id in (" +
-            "select i.id " +
-            "from Item as i " +
-            "where i.owner.id = :userId) " +
-            "order by b.start desc ")
-    List<Booking> findAllByOwnerIdOrderByStartDesc(@Param("userId") long userId, Pageable pageable);
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.item.id in :itemIds " +
+            "and b.status = :status " +
+            "and b.start = (" +
+            "select max(lb.start) " +
+            "from Booking as lb " +
+            "where lb.item.id = b.item.id " +
+            "and lb.status = :status " +
+            "and lb.start < :now)")
+    List<Booking> findLastByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                    @Param("status") Status status,
+                                    @Param("now") LocalDateTime now);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.id in (" +
-            "select i.id " +
-            "from Item as i " +
-            "where i.owner.id = :userId) " +
-            "and b.end < :end " +
-            "order by b.start desc ")
-    List<Booking> findAllByOwnerIdAndEndBeforeOrderByStartDesc(
-            @Param("userId")long userId, @Param("end")LocalDateTime end, Pageable pageable);
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.item.id in :itemIds " +
+            "and b.status = :status " +
+            "and b.start = (" +
+            "select min(nb.start) " +
+            "from Booking as nb " +
+            "where nb.item.id = b.item.id " +
+            "and nb.status = :status " +
+            "and nb.start > :now)")
+    List<Booking> findNextByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                    @Param("status") Status status,
+                                    @Param("now") LocalDateTime now);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.id in (" +
-            "select i.id " +
-            "from Item as i " +
-            "where i.owner.id = :userId) " +
-            "and b.start < :start and b.end > :end " +
-            "order by b.start desc ")
-    List<Booking> findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-            @Param("userId") long userId, @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end, Pageable pageable);
+            "join fetch b.item " +
+            "join fetch b.booker, " +
+            "Booking as lb " +
+            "where lb.id in :bookingIds " +
+            "and b.item.id = lb.item.id " +
+            "and b.status = :status " +
+            "and b.start = (" +
+            "select min(nb.start) " +
+            "from Booking as nb " +
+            "where nb.item.id = lb.item.id " +
+            "and nb.status = :status " +
+            "and nb.start > lb.end)")
+    List<Booking> findNextAfterBookings(@Param("bookingIds") Collection<Long> bookingIds,
+                                        @Param("status") Status status);
 
-    @Query("select b " +
+    @Query("select count(b) > 0 " +
             "from Booking as b " +
-            "where b.item.id in (" +
-            "select i.id " +
-            "from Item as i " +
-            "where i.owner.id = :userId) " +
-            "and b.start > :start " +
-            "order by b.start desc ")
-    List<Booking> findAllByOwnerIdAndStartAfterOrderByStartDesc(
-            @Param("userId") long userId, @Param("start") LocalDateTime start, Pageable pageable);
+            "where b.item.id = :itemId " +
+            "and b.status = :status " +
+            "and b.start < :end " +
+            "and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") long itemId,
+                              @Param("status") Status status,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.id in (" +
-            "select i.id " +
-            "from Item as i " +
-            "where i.owner.id = :userId) " +
-            "and b.status = :status " +
-            "order by b.start desc ")
-    List<Booking> findAllByOwnerIdAndStatusOrderByStartDesc(
-            @Param("userId") long userId, @Param("status") Status status, Pageable pageable);
+            "join fetch b.item as i " +
+            "join fetch i.owner " +
+            "join fetch b.booker " +
+            "where b.id in :ids " +
+            "and i.owner.id = :ownerId")
+    List<Booking> findAllByIdInAndOwnerId(@Param("ids") Collection<Long> ids,
+                                          @Param("ownerId") long ownerId);
 
-    Optional<Booking> findFirstByItemIdAndStatusAndStartBeforeOrderByStartDescItemIdDesc(
-            long id, Status status, LocalDateTime start);
+    List<Booking> findAllByItemIdInAndStatusAndEndAfter(Collection<Long> itemIds, Status status, LocalDateTime end);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingDeadline(b.id, b.start) " +
+            "from Booking as b " +
+            "where b.status = :status and b.id > :id " +
+            "order by b.id")
+    List<BookingDeadline> findDeadlinesByStatusAndIdAfter(@Param("status") Status status,
+                                                          @Param("id") long id,
+                                                          Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Booking as b " +
+            "set b.status = :to, b.version = b.version + 1 " +
+            "where b.id in :ids " +
+            "and b.status = :from " +
+            "and b.start <= :now")
+    int updateStatusIfStarted(@Param("ids") Collection<Long> ids,
+                              @Param("from") Status from,
+                              @Param("to") Status to,
+                              @Param("now") LocalDateTime now);
+
+    @Query("select b.id " +
+            "from Booking as b " +
+            "where b.end < :end " +
+            "order by b.id")
+    List<Long> findIdsByEndBefore(@Param("end") LocalDateTime end, Pageable pageable);
 
-    Optional<Booking> findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(
-            long itemId, Status status, LocalDateTime start);
+    List<Booking> findAllByItemIdAndStatusAndEndAfter(long itemId, Status status, LocalDateTime end);
 
     List<Booking>  findAllByBookerIdAndItemIdAndEndBefore(long bookerId, long itemId, LocalDateTime end);
 }
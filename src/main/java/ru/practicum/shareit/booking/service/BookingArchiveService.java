@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingArchiveService {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${shareit.bookings.archive-after-months:12}")
+    private int archiveAfterMonths;
+    @Value("${shareit.bookings.archive-chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${shareit.bookings.archive-cron:0 30 3 * * *}")
+    public void archive() {
+        archiveEndedBefore(LocalDateTime.now().minusMonths(archiveAfterMonths));
+    }
+
+    public int archiveEndedBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> moveChunk(cutoff));
+            archived += moved;
+        } while (moved == chunkSize);
+        log.info("в архив перенесено {} бронирований, завершившихся до {}", archived, cutoff);
+        return archived;
+    }
+
+    private int moveChunk(LocalDateTime cutoff) {
+        List<Long> ids = bookingRepository.findIdsByEndBefore(cutoff, PageRequest.of(0, chunkSize));
+        if (!ids.isEmpty()) {
+            archivedBookingRepository.copyFromBookings(ids);
+            bookingRepository.deleteAllByIdInBatch(ids);
+        }
+        return ids.size();
+    }
+}
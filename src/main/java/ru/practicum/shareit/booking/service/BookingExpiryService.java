@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.BookingDeadline;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.utils.TimingWheel;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingExpiryService {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 60;
+
+    private final BookingRepository bookingRepository;
+    private final TimingWheel<Long> wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    @Value("${shareit.bookings.expiry-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        long lastId = 0;
+        int loaded = 0;
+        List<BookingDeadline> chunk;
+        do {
+            chunk = bookingRepository.findDeadlinesByStatusAndIdAfter(Status.WAITING, lastId,
+                    PageRequest.of(0, batchSize));
+            for (BookingDeadline deadline : chunk) {
+                schedule(deadline.getBookingId(), deadline.getStart());
+                lastId = deadline.getBookingId();
+            }
+            loaded += chunk.size();
+        } while (chunk.size() == batchSize);
+        log.info("в очередь истечения загружено {} ожидающих бронирований", loaded);
+    }
+
+    public void schedule(long bookingId, LocalDateTime start) {
+        wheel.add(bookingId, toMillis(start));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry-delay-ms:1000}")
+    public void expireStarted() {
+        expireStarted(LocalDateTime.now());
+    }
+
+    public int expireStarted(LocalDateTime now) {
+        List<Long> due = wheel.advance(toMillis(now));
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> ids = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                expired += bookingRepository.updateStatusIfStarted(ids, Status.WAITING, Status.EXPIRED, now);
+            } catch (RuntimeException e) {
+                List<Long> unprocessed = due.subList(from, due.size());
+                unprocessed.forEach(bookingId -> schedule(bookingId, now));
+                log.warn("не удалось перевести бронирования в статус EXPIRED, {} возвращено в очередь",
+                        unprocessed.size());
+                throw e;
+            }
+        }
+        if (expired > 0) {
+            log.info("в статус EXPIRED переведено {} бронирований из {} наступивших", expired, due.size());
+        }
+        return expired;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.bookings.partitions.enabled", havingValue = "true")
+public class BookingPartitionMaintenance {
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${shareit.bookings.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.bookings.partitions.cron:0 0 2 * * *}")
+    public void createPartitions() {
+        createPartitions(YearMonth.now());
+    }
+
+    public void createPartitions(YearMonth current) {
+        Set<YearMonth> inDefault = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT to_char(start_date, 'YYYY-MM') FROM bookings_default", String.class).stream()
+                .map(YearMonth::parse)
+                .collect(Collectors.toCollection(TreeSet::new));
+        for (YearMonth month : inDefault) {
+            transactionTemplate.executeWithoutResult(status -> moveFromDefault(month));
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!inDefault.contains(month)) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                        + " PARTITION OF bookings FOR VALUES FROM " + bounds(month));
+            }
+        }
+        log.info("секции bookings созданы с {} на {} месяцев вперед", current, monthsAhead);
+    }
+
+    // a partition cannot be created while the default partition holds rows of its range
+    private void moveFromDefault(YearMonth month) {
+        String partition = partitionName(month);
+        jdbcTemplate.execute("CREATE TABLE " + partition
+                + " (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM bookings_default "
+                + "WHERE start_date >= '" + month.atDay(1) + "' AND start_date < '" + month.plusMonths(1).atDay(1)
+                + "' RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + partition
+                + " FOR VALUES FROM " + bounds(month));
+        log.info("в секцию {} перенесено {} бронирований из bookings_default", partition, moved);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "bookings_" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static String bounds(YearMonth month) {
+        return "('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
@@ -1,16 +1,32 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.model.BookingStatusUpdate;
+import ru.practicum.shareit.booking.model.BookingStatusUpdateResult;
+import ru.practicum.shareit.utils.PageCursor;
 import java.util.List;
+import java.util.Map;
 
 public interface BookingService {
     Booking createBooking(Booking booking, long userId, long itemId);
 
     Booking updateStatus(long userId, long id, boolean approved);
 
+    List<BookingStatusUpdateResult> updateStatuses(long userId, List<BookingStatusUpdate> updates);
+
     Booking getById(long id, long userId);
 
-    List<Booking> getAllByUser(long userId, String state, int from, int size);
+    List<BookingListEntry> getAllByUser(long userId, String state, int from, int size);
+
+    List<BookingListEntry> getAllByOwnerItems(long userId, String state, int from, int size);
+
+    List<BookingListEntry> getAllByUser(long userId, String state, PageCursor after, int size);
+
+    List<BookingListEntry> getAllByOwnerItems(long userId, String state, PageCursor after, int size);
+
+    Map<State, Long> getStatsByUser(long userId);
 
-    List<Booking> getAllByOwnerItems(long userId, String state, int from, int size);
+    Map<State, Long> getStatsByOwnerItems(long userId);
 }
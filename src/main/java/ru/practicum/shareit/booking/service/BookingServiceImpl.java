@@ -2,24 +2,43 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.model.BookingStatusUpdate;
+import ru.practicum.shareit.booking.model.BookingStatusUpdateResult;
+import ru.practicum.shareit.booking.enums.Role;
 import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.service.ItemBookingResolver;
+import ru.practicum.shareit.item.service.ItemViewUpdater;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UnsupportedException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestCustom;
+import ru.practicum.shareit.utils.RetryOnConflict;
+import ru.practicum.shareit.utils.TransactionHooks;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,6 +48,11 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final ItemLocks itemLocks;
+    private final ItemAvailabilityCalendar availabilityCalendar;
+    private final ItemViewUpdater itemViewUpdater;
+    private final BookingExpiryService bookingExpiry;
+    private final ItemBookingResolver itemBookingResolver;
 
     private User findUserByIdOrThrow(long userId) {
         return userRepository.findById(userId).orElseThrow(() ->
@@ -45,6 +69,12 @@ public class BookingServiceImpl implements BookingService {
                 .orElseThrow(() -> new NotFoundException("Бронирования с id=" + BookingId + " не найдена"));
     }
 
+    private Booking findHotOrArchivedBookingByIdOrThrow(long bookingId) {
+        return bookingRepository.findById(bookingId)
+                .or(() -> itemBookingResolver.findArchivedBooking(bookingId))
+                .orElseThrow(() -> new NotFoundException("Бронирования с id=" + bookingId + " не найдена"));
+    }
+
     @Override
     @Transactional
     public Booking createBooking(Booking booking, long userId, long itemId) {
@@ -59,35 +89,158 @@ public class BookingServiceImpl implements BookingService {
         if (item.getOwner().getId() == booker.getId()) {
             throw new NotFoundException("Пользователь не может бронировать у самого себя");
         }
+        checkNotOverlapped(itemId, booking);
         booking.setBooker(booker);
         booking.setItem(item);
         booking.setStatus(Status.WAITING);
         Booking savedBooking = bookingRepository.save(booking);
+        TransactionHooks.afterCommit(() -> bookingExpiry.schedule(savedBooking.getId(), savedBooking.getStart()));
         log.info("создано бронирование - {}", savedBooking);
         return savedBooking;
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public Booking updateStatus(long userId, long bookingId, boolean approved) {
         User booker = findUserByIdOrThrow(userId);
         Booking booking = findBookingByIdOrThrow(bookingId);
         if (booking.getItem().getOwner().getId() != booker.getId()) {
             throw new NotFoundException("Пользователь с id=" + bookingId + " не является собственником");
         }
-        if ((booking.getStatus() == Status.APPROVED && approved)
-                || (booking.getStatus() == Status.REJECTED && !approved)) {
-            throw new ValidationException("Вещь с id=" + booking.getItem().getId() + " не доступна для бронирования");
+        checkTransition(booking, approved);
+        if (approved) {
+            itemLocks.lockUntilCompletion(booking.getItem().getId());
+            checkNotOverlapped(booking.getItem().getId(), booking);
         }
+        scheduleCalendarUpdate(booking, approved);
         booking.setStatus(approved ? Status.APPROVED : Status.REJECTED);
+        itemViewUpdater.refresh(List.of(booking.getItem().getId()));
         log.info("обновлен статус бронирования - {}", booking);
         return booking;
     }
 
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public List<BookingStatusUpdateResult> updateStatuses(long userId, List<BookingStatusUpdate> updates) {
+        User owner = findUserByIdOrThrow(userId);
+        Set<Long> bookingIds = new HashSet<>();
+        for (BookingStatusUpdate update : updates) {
+            if (!bookingIds.add(update.getBookingId())) {
+                throw new ValidationException("Бронирование с id=" + update.getBookingId()
+                        + " указано в списке несколько раз");
+            }
+        }
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdInAndOwnerId(bookingIds, owner.getId()).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        itemLocks.lockAllUntilCompletion(bookings.values().stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        Map<Long, List<Booking>> approvedByItem = findApprovedForUpdates(updates, bookings);
+        List<BookingStatusUpdateResult> results = new ArrayList<>(updates.size());
+        Set<Long> updatedItemIds = new HashSet<>();
+        for (BookingStatusUpdate update : updates) {
+            Booking booking = bookings.get(update.getBookingId());
+            if (booking == null) {
+                results.add(new BookingStatusUpdateResult(update.getBookingId(), null,
+                        "Бронирование с id=" + update.getBookingId() + " не найдено среди бронирований вещей"
+                                + " пользователя с id=" + owner.getId()));
+                continue;
+            }
+            long itemId = booking.getItem().getId();
+            List<Booking> approved = approvedByItem.computeIfAbsent(itemId, id -> new ArrayList<>());
+            try {
+                checkTransition(booking, update.isApproved());
+                if (update.isApproved()) {
+                    checkNotOverlapped(itemId, booking, approved);
+                }
+            } catch (ValidationException e) {
+                results.add(new BookingStatusUpdateResult(booking.getId(), booking.getStatus(), e.getMessage()));
+                continue;
+            }
+            if (update.isApproved()) {
+                approved.add(booking);
+            } else {
+                approved.removeIf(other -> other.getId() == booking.getId());
+            }
+            scheduleCalendarUpdate(booking, update.isApproved());
+            booking.setStatus(update.isApproved() ? Status.APPROVED : Status.REJECTED);
+            results.add(new BookingStatusUpdateResult(booking.getId(), booking.getStatus(), null));
+            updatedItemIds.add(itemId);
+        }
+        if (!updatedItemIds.isEmpty()) {
+            itemViewUpdater.refresh(updatedItemIds);
+        }
+        log.info("обновлены статусы бронирований - {}", results);
+        return results;
+    }
+
+    private Map<Long, List<Booking>> findApprovedForUpdates(List<BookingStatusUpdate> updates,
+                                                            Map<Long, Booking> bookings) {
+        List<Booking> approvals = updates.stream()
+                .filter(BookingStatusUpdate::isApproved)
+                .map(update -> bookings.get(update.getBookingId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (approvals.isEmpty()) {
+            return new HashMap<>();
+        }
+        Set<Long> itemIds = approvals.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        LocalDateTime earliestStart = approvals.stream()
+                .map(Booking::getStart)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        return bookingRepository.findAllByItemIdInAndStatusAndEndAfter(itemIds, Status.APPROVED, earliestStart)
+                .stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(),
+                        HashMap::new, Collectors.toCollection(ArrayList::new)));
+    }
+
+    private void checkTransition(Booking booking, boolean approved) {
+        if (booking.getStatus() == Status.EXPIRED) {
+            throw new ValidationException("Бронирование с id=" + booking.getId() + " истекло без подтверждения");
+        }
+        if ((booking.getStatus() == Status.APPROVED && approved)
+                || (booking.getStatus() == Status.REJECTED && !approved)) {
+            throw new ValidationException("Вещь с id=" + booking.getItem().getId() + " не доступна для бронирования");
+        }
+    }
+
+    private void scheduleCalendarUpdate(Booking booking, boolean approved) {
+        long itemId = booking.getItem().getId();
+        if (approved) {
+            TransactionHooks.afterCommit(() -> availabilityCalendar.add(itemId, booking.getStart(), booking.getEnd()));
+        } else if (booking.getStatus() == Status.APPROVED) {
+            TransactionHooks.afterCommit(() -> availabilityCalendar.remove(itemId, booking.getStart()));
+        }
+    }
+
+    private void checkNotOverlapped(long itemId, Booking booking) {
+        if (bookingRepository.existsOverlapping(itemId, Status.APPROVED, booking.getStart(), booking.getEnd())) {
+            throw overlapped(itemId, booking);
+        }
+    }
+
+    private void checkNotOverlapped(long itemId, Booking booking, List<Booking> approved) {
+        for (Booking other : approved) {
+            if (other.getStart().isBefore(booking.getEnd()) && other.getEnd().isAfter(booking.getStart())) {
+                throw overlapped(itemId, booking);
+            }
+        }
+    }
+
+    private ValidationException overlapped(long itemId, Booking booking) {
+        return new ValidationException("Вещь с id=" + itemId + " уже забронирована на период с "
+                + booking.getStart() + " по " + booking.getEnd());
+    }
+
     @Override
     public Booking getById(long bookingId, long userId) {
         User booker = findUserByIdOrThrow(userId);
-        Booking booking = findBookingByIdOrThrow(bookingId);
+        Booking booking = findHotOrArchivedBookingByIdOrThrow(bookingId);
         if (booking.getBooker().getId() != booker.getId()
                 && booking.getItem().getOwner().getId() != booker.getId()) {
             throw new NotFoundException("Пользователь с id=" + booker.getId() + " должен быть либо собственником,"
@@ -98,83 +251,64 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllByUser(long userId, String state, int from, int size) {
+    public List<BookingListEntry> getAllByUser(long userId, String state, int from, int size) {
         User booker = findUserByIdOrThrow(userId);
-        LocalDateTime currentTime = LocalDateTime.now();
-        Pageable page = PageRequestCustom.get(from, size);
-        List<Booking> listBooking;
-        switch (getState(state)) {
-            case ALL:
-                listBooking = bookingRepository
-                        .findAllByBookerIdOrderByStartDesc(booker.getId(), page);
-                break;
-            case PAST:
-                listBooking = bookingRepository
-                        .findAllByBookerIdAndEndBeforeOrderByStartDesc(booker.getId(), currentTime, page);
-                break;
-            case CURRENT:
-                listBooking = bookingRepository
-                        .findAllByBookerIdAndStartBeforeAndEndAfterOrderByEndDesc(booker.getId(),
-                                currentTime, currentTime, page);
-                break;
-            case FUTURE:
-                listBooking = bookingRepository
-                        .findAllByBookerIdAndStartAfterOrderByStartDesc(booker.getId(), currentTime, page);
-                break;
-            case WAITING:
-                listBooking = bookingRepository
-                        .findAllByBookerIdAndStatusOrderByStartDesc(booker.getId(), Status.WAITING, page);
-                break;
-            case REJECTED:
-                listBooking = bookingRepository
-                        .findAllByBookerIdAndStatusOrderByStartDesc(booker.getId(), Status.REJECTED, page);
-                break;
-            default:
-                throw new UnsupportedException("Unknown state: UNSUPPORTED_STATUS");
-        }
-        log.info("получена page from={} size={} с бронированиями - {}", from, size, listBooking);
+        Slice<BookingListEntry> page = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), getState(state),
+                LocalDateTime.now(), PageRequestCustom.get(from, size));
+        log.info("получена page from={} size={} с бронированиями - {}", from, size, page.getContent());
+        return page.getContent();
+    }
+
+    @Override
+    public List<BookingListEntry> getAllByOwnerItems(long userId, String state, int from, int size) {
+        User owner = findUserByIdOrThrow(userId);
+        Slice<BookingListEntry> page = bookingRepository.findAllByState(Role.OWNER, owner.getId(), getState(state),
+                LocalDateTime.now(), PageRequestCustom.get(from, size));
+        log.info("получена page from={} size={} с бронированиями - {}", from, size, page.getContent());
+        return page.getContent();
+    }
+
+    @Override
+    public List<BookingListEntry> getAllByUser(long userId, String state, PageCursor after, int size) {
+        User booker = findUserByIdOrThrow(userId);
+        List<BookingListEntry> listBooking = bookingRepository.findAllByStateAfter(Role.BOOKER, booker.getId(),
+                getState(state), LocalDateTime.now(), checkCursor(after), size);
+        log.info("получена page after={} size={} с бронированиями - {}", after, size, listBooking);
         return listBooking;
     }
 
     @Override
-    public List<Booking> getAllByOwnerItems(long userId, String state, int from, int size) {
+    public List<BookingListEntry> getAllByOwnerItems(long userId, String state, PageCursor after, int size) {
         User owner = findUserByIdOrThrow(userId);
-        LocalDateTime currentTime = LocalDateTime.now();
-        Pageable page = PageRequestCustom.get(from, size);
-        List<Booking> listBooking;
-        switch (getState(state)) {
-            case ALL:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdOrderByStartDesc(owner.getId(), page);
-                break;
-            case PAST:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdAndEndBeforeOrderByStartDesc(owner.getId(), currentTime, page);
-                break;
-            case CURRENT:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(owner.getId(),
-                                currentTime, currentTime, page);
-                break;
-            case FUTURE:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdAndStartAfterOrderByStartDesc(owner.getId(), currentTime, page);
-                break;
-            case WAITING:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdAndStatusOrderByStartDesc(owner.getId(), Status.WAITING, page);
-                break;
-            case REJECTED:
-                listBooking = bookingRepository
-                        .findAllByOwnerIdAndStatusOrderByStartDesc(owner.getId(), Status.REJECTED, page);
-                break;
-            default:
-                throw new UnsupportedException("Unknown state: UNSUPPORTED_STATUS");
-        }
-        log.info("получена page from={} size={} с бронированиями - {}", from, size, listBooking);
+        List<BookingListEntry> listBooking = bookingRepository.findAllByStateAfter(Role.OWNER, owner.getId(),
+                getState(state), LocalDateTime.now(), checkCursor(after), size);
+        log.info("получена page after={} size={} с бронированиями - {}", after, size, listBooking);
         return listBooking;
     }
 
+    @Override
+    public Map<State, Long> getStatsByUser(long userId) {
+        User booker = findUserByIdOrThrow(userId);
+        Map<State, Long> stats = bookingRepository.countByState(Role.BOOKER, booker.getId(), LocalDateTime.now());
+        log.info("получена статистика бронирований пользователя с id={} - {}", userId, stats);
+        return stats;
+    }
+
+    @Override
+    public Map<State, Long> getStatsByOwnerItems(long userId) {
+        User owner = findUserByIdOrThrow(userId);
+        Map<State, Long> stats = bookingRepository.countByState(Role.OWNER, owner.getId(), LocalDateTime.now());
+        log.info("получена статистика бронирований вещей собственника с id={} - {}", userId, stats);
+        return stats;
+    }
+
+    private PageCursor checkCursor(PageCursor after) {
+        if (after.getKey() == null) {
+            throw new ValidationException("Cursor не относится к списку бронирований");
+        }
+        return after;
+    }
+
     private State getState(String state) {
         try {
             return State.valueOf(state);
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.utils.TransactionHooks;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class ItemLocks {
+    private static final int STRIPES = 64;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public ItemLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void lockUntilCompletion(long itemId) {
+        Lock lock = locks[stripe(itemId)];
+        lock.lock();
+        TransactionHooks.afterCompletion(lock::unlock);
+    }
+
+    public void lockAllUntilCompletion(Collection<Long> itemIds) {
+        itemIds.stream()
+                .mapToInt(ItemLocks::stripe)
+                .distinct()
+                .sorted()
+                .forEach(stripe -> {
+                    Lock lock = locks[stripe];
+                    lock.lock();
+                    TransactionHooks.afterCompletion(lock::unlock);
+                });
+    }
+
+    private static int stripe(long itemId) {
+        return (Long.hashCode(itemId) & Integer.MAX_VALUE) % STRIPES;
+    }
+}
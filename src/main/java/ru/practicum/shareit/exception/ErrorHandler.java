@@ -2,11 +2,13 @@ package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import javax.validation.ConstraintViolationException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 
@@ -37,6 +39,15 @@ public class ErrorHandler {
                 String.format("stackTrace: %s", stackTrace(e)));
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        log.error(String.format("OptimisticLockingFailure error: %s", e.getMessage()));
+        log.error(String.format("stackTrace: %s", stackTrace(e)));
+        return new ErrorResponse(String.format("OptimisticLockingFailure error: %s", e.getMessage()),
+                String.format("stackTrace: %s", stackTrace(e)));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(ValidationException e) {
@@ -65,6 +76,15 @@ public class ErrorHandler {
                 String.format("stackTrace: %s", stackTrace(e)));
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolationException(ConstraintViolationException e) {
+        log.error(String.format("Validation error: %s", e.getMessage()));
+        log.error(String.format("stackTrace: %s", stackTrace(e)));
+        return new ErrorResponse(String.format("ConstraintViolation error: %s", e.getMessage()),
+                String.format("stackTrace: %s", stackTrace(e)));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleException(Exception e) {
@@ -1,36 +1,51 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeWindowDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.enums.SearchMode;
 import ru.practicum.shareit.item.interfaces.CreateItem;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.utils.IdempotencyCache;
+import ru.practicum.shareit.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.checkerframework.checker.index.qual.Positive;
 import org.springframework.context.annotation.ComponentScan;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 @Validated
-@ComponentScan(basePackageClasses = ItemMapper.class)
+@ComponentScan(basePackageClasses = {ItemMapper.class, IdempotencyCache.class})
 public class ItemController {
     private final ItemService service;
     private final ItemMapper mapper;
+    private final IdempotencyCache idempotencyCache;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ItemDto create(@RequestHeader("X-Sharer-User-Id") long userId,
+                          @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                          String idempotencyKey,
                           @Validated(CreateItem.class) @RequestBody ItemDto itemDto) {
-        log.info("POST /items with body {} and X-Sharer-User-Id={} ", itemDto, userId);
-        return mapper.toItemDto(service.create(mapper.toItem(itemDto), userId, itemDto.getRequestId()));
+        log.info("POST /items with body {} and X-Sharer-User-Id={} Idempotency-Key={} ", itemDto, userId,
+                idempotencyKey);
+        return idempotencyCache.execute("POST /items", userId, idempotencyKey, itemDto,
+                () -> mapper.toItemDto(service.create(mapper.toItem(itemDto), userId, itemDto.getRequestId())));
     }
 
     @PatchMapping("/{id}")
@@ -47,10 +62,19 @@ public class ItemController {
     @ResponseStatus(HttpStatus.OK)
     public List<ItemDto> getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") long ownerId,
                                            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                           @RequestParam(defaultValue = "20") @Positive int size) {
-        log.info("GET /items/?from={{}}&size={{}} X-Sharer-User-Id={}",
-                from, size, ownerId);
-        return mapper.toItemDto(service.getItemsByOwnerId(ownerId, from, size));
+                                           @RequestParam(defaultValue = "20") @Positive int size,
+                                           @RequestParam(required = false) String after,
+                                           HttpServletResponse response) {
+        log.info("GET /items/?from={{}}&size={{}}&after={{}} X-Sharer-User-Id={}",
+                from, size, after, ownerId);
+        List<Item> items = after == null
+                ? service.getItemsByOwnerId(ownerId, from, size)
+                : service.getItemsByOwnerId(ownerId, PageCursor.decode(after), size);
+        if (items.size() == size) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER,
+                    PageCursor.of(items.get(size - 1).getId()).encode());
+        }
+        return mapper.toItemDto(items);
     }
 
     @GetMapping("/{id}")
@@ -64,10 +88,33 @@ public class ItemController {
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
     public List<ItemDto> getByNameOrDescription(@RequestParam String text,
+                                                @RequestParam(defaultValue = "PLAIN") String mode,
                                                 @RequestParam(defaultValue = "0") @PositiveOrZero int from,
                                                 @RequestParam(defaultValue = "20") @Positive int size) {
-        log.info("GET /items/search?text={{}}&from={{}}&size={{}}", text, from, size);
-        return mapper.toItemDto(service.getItemsByNameOrDescription(text, from, size));
+        log.info("GET /items/search?text={{}}&mode={{}}&from={{}}&size={{}}", text, mode, from, size);
+        if (getSearchMode(mode) == SearchMode.RANKED) {
+            return mapper.toListItemDto(service.getItemsByRelevance(text, from, size));
+        }
+        return mapper.toListItemDto(service.getItemsByNameOrDescription(text, from, size));
+    }
+
+    @GetMapping("/suggest")
+    @ResponseStatus(HttpStatus.OK)
+    public List<String> getNameSuggestions(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "10") @Positive int size) {
+        log.info("GET /items/suggest?prefix={{}}&size={{}}", prefix, size);
+        return service.getNameSuggestions(prefix, size);
+    }
+
+    @GetMapping("/{id}/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FreeWindowDto> getAvailability(@PathVariable long id,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("GET /items/{{}}/availability?from={{}}&to={{}}", id, from, to);
+        return mapper.toFreeWindowDto(service.getAvailability(id, from, to));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -80,4 +127,12 @@ public class ItemController {
         return mapper.commentToDto(
                 service.addComment(bookerId, itemId, mapper.dtoToComment(commentDto)));
     }
+
+    private SearchMode getSearchMode(String mode) {
+        try {
+            return SearchMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown search mode: " + mode);
+        }
+    }
 }
@@ -24,4 +24,5 @@ public class ItemDto {
     private BookingInItemField lastBooking;
     private BookingInItemField nextBooking;
     private List<CommentDto> comments;
+    private Integer commentsCount;
 }
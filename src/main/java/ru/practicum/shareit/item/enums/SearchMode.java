@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item.enums;
+
+public enum SearchMode {
+    PLAIN,
+    RANKED
+}
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeWindowDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.FreeWindow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import java.util.List;
@@ -20,9 +23,21 @@ public interface ItemMapper {
     @Mapping(target = "lastBooking", ignore = true)
     @Mapping(target = "nextBooking", ignore = true)
     @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "commentsCount", ignore = true)
+    ItemDto toItemDto(ItemListEntry entry);
+
+    List<ItemDto> toListItemDto(List<ItemListEntry> entries);
+
+    @Mapping(target = "lastBooking", ignore = true)
+    @Mapping(target = "nextBooking", ignore = true)
+    @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "commentsCount", ignore = true)
     @Mapping(target = "request", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Item toItem(ItemDto itemDto);
 
+    List<FreeWindowDto> toFreeWindowDto(List<FreeWindow> freeWindows);
+
     @Mapping(target = "authorName", source = "author.name")
     CommentDto commentToDto(Comment comment);
 
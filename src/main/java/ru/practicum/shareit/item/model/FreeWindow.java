@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class FreeWindow {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
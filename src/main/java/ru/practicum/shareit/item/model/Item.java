@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.user.model.User;
@@ -14,6 +15,7 @@ import java.util.List;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "items")
 public class Item {
     @Id
@@ -26,17 +28,21 @@ public class Item {
     @NotNull(message = "available не должно быть null")
     private Boolean available;
     @NotNull(message = "owner не должен быть null")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", referencedColumnName = "id")
     private User owner;
     @ToString.Exclude
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id", referencedColumnName = "id")
     private ItemRequest request;
+    @Version
+    private int version;
     @Transient
     private Booking lastBooking;
     @Transient
     private Booking nextBooking;
     @Transient
     private List<Comment> comments;
+    @Transient
+    private Integer commentsCount;
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemListEntry {
+    private long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+}
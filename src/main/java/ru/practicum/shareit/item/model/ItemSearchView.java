@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemSearchView {
+    long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+import ru.practicum.shareit.booking.model.Booking;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "item_views")
+public class ItemView {
+    @Id
+    @Column(name = "item_id")
+    private long itemId;
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", insertable = false, updatable = false)
+    private Item item;
+    // bookings can be archived or deleted under the view, and @NotFound makes Hibernate load these
+    // eagerly to tell a missing row from a present one; ItemViewRepository.findById fetches them in its join
+    @ManyToOne
+    @NotFound(action = NotFoundAction.IGNORE)
+    @JoinColumn(name = "last_booking_id", referencedColumnName = "id")
+    private Booking lastBooking;
+    @Column(name = "last_booking_id", insertable = false, updatable = false)
+    private Long lastBookingId;
+    @ManyToOne
+    @NotFound(action = NotFoundAction.IGNORE)
+    @JoinColumn(name = "next_booking_id", referencedColumnName = "id")
+    private Booking nextBooking;
+    @Column(name = "comment_count")
+    private int commentCount;
+    @Column(name = "refresh_at")
+    private LocalDateTime refreshAt;
+}
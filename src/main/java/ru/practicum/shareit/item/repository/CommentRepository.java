@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.repository;
 
 import ru.practicum.shareit.item.model.Comment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,8 +10,13 @@ import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findAllByItemId(long id);
 
-    @Query("select c from Comment as c where c.item.id in :ids")
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findAllByItemIdOrderByCreatedDesc(long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select c from Comment as c where c.item.id in :ids order by c.created desc")
     List<Comment> findAllByItemIds(@Param("ids") Collection<Long> ids);
 }
@@ -2,14 +2,59 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.model.ItemSearchView;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository
         extends JpaRepository<Item, Long>, PagingAndSortingRepository<Item, Long> {
-    List<Item> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-            String text, String text1, boolean b, Pageable pageable);
+    @Query("select new ru.practicum.shareit.item.model.ItemListEntry(i.id, i.name, i.description, " +
+            "i.available, i.request.id) " +
+            "from Item as i " +
+            "where i.available = true " +
+            "and (upper(i.name) like upper(concat('%', :text, '%')) escape '\\' " +
+            "or upper(i.description) like upper(concat('%', :text, '%')) escape '\\') " +
+            "order by i.id")
+    List<ItemListEntry> searchAvailable(@Param("text") String text, Pageable pageable);
 
-    List<Item> findAllByOwnerIdOrderById(long ownerId, Pageable pageable);
+    @Query("select new ru.practicum.shareit.item.model.ItemListEntry(i.id, i.name, i.description, " +
+            "i.available, i.request.id) " +
+            "from Item as i " +
+            "where i.id in :ids")
+    List<ItemListEntry> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new ru.practicum.shareit.item.model.ItemListEntry(i.id, i.name, i.description, " +
+            "i.available, i.request.id) " +
+            "from Item as i " +
+            "where i.owner.id = :ownerId " +
+            "order by i.id")
+    List<ItemListEntry> findAllByOwnerIdOrderById(@Param("ownerId") long ownerId, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.model.ItemListEntry(i.id, i.name, i.description, " +
+            "i.available, i.request.id) " +
+            "from Item as i " +
+            "where i.owner.id = :ownerId " +
+            "and i.id > :id " +
+            "order by i.id")
+    List<ItemListEntry> findAllByOwnerIdAndIdGreaterThanOrderById(@Param("ownerId") long ownerId,
+                                                                  @Param("id") long id,
+                                                                  Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.model.ItemListEntry(i.id, i.name, i.description, " +
+            "i.available, i.request.id) " +
+            "from Item as i " +
+            "where i.request.id in :requestIds " +
+            "order by i.id")
+    List<ItemListEntry> findAllByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available " +
+            "from Item as i " +
+            "where i.id > :id " +
+            "order by i.id")
+    List<ItemSearchView> findSearchViewsByIdAfter(@Param("id") long id, Pageable pageable);
 }
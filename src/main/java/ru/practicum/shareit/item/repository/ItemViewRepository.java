@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemView;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemViewRepository extends JpaRepository<ItemView, Long> {
+    @Override
+    @Query("select v " +
+            "from ItemView as v " +
+            "join fetch v.item as i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "left join fetch v.lastBooking " +
+            "left join fetch v.nextBooking " +
+            "where v.itemId = :itemId")
+    Optional<ItemView> findById(@Param("itemId") Long itemId);
+
+    @Query("select v.itemId " +
+            "from ItemView as v " +
+            "where v.refreshAt <= :now " +
+            "order by v.refreshAt")
+    List<Long> findStaleItemIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO item_views (item_id, comment_count, refresh_at) " +
+            "SELECT i.id, (SELECT COUNT(*) FROM comments AS c WHERE c.item_id = i.id), :now " +
+            "FROM items AS i " +
+            "WHERE NOT EXISTS (SELECT 1 FROM item_views AS v WHERE v.item_id = i.id) " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    int insertMissing(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update ItemView as v " +
+            "set v.commentCount = v.commentCount + 1 " +
+            "where v.itemId = :itemId")
+    int incrementCommentCount(@Param("itemId") long itemId);
+}
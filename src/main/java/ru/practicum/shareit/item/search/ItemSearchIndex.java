@@ -0,0 +1,411 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchView;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int WARM_UP_CHUNK_SIZE = 1000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double TYPO_PENALTY = 0.7;
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ItemRepository itemRepository;
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> tokenPostings = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tokenGrams = new ConcurrentHashMap<>();
+    private final NameTokenTrie nameTokens = new NameTokenTrie(MAX_SUGGESTIONS);
+    private final Set<Long> changedDuringWarmUp = new HashSet<>();
+    private volatile long nameTokenCount;
+    private volatile long descriptionTokenCount;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long lastId = 0;
+        List<ItemSearchView> chunk;
+        do {
+            chunk = itemRepository.findSearchViewsByIdAfter(lastId, PageRequest.of(0, WARM_UP_CHUNK_SIZE));
+            for (ItemSearchView view : chunk) {
+                indexUnlessChanged(view);
+                lastId = view.getId();
+            }
+        } while (chunk.size() == WARM_UP_CHUNK_SIZE);
+        synchronized (this) {
+            ready = true;
+            changedDuringWarmUp.clear();
+        }
+        log.info("построен индекс поиска вещей - {} вещей, {} триграмм", documents.size(), postings.size());
+    }
+
+    public void index(Item item) {
+        index(item.getId(), item.getName(), item.getDescription(), Boolean.TRUE.equals(item.getAvailable()));
+    }
+
+    public synchronized void index(long itemId, String name, String description, boolean available) {
+        if (!ready) {
+            changedDuringWarmUp.add(itemId);
+        }
+        indexDocument(itemId, name, description, available);
+    }
+
+    private synchronized void indexUnlessChanged(ItemSearchView view) {
+        if (!changedDuringWarmUp.contains(view.getId())) {
+            indexDocument(view.getId(), view.getName(), view.getDescription(),
+                    Boolean.TRUE.equals(view.getAvailable()));
+        }
+    }
+
+    private void indexDocument(long itemId, String name, String description, boolean available) {
+        Document document = new Document(normalize(name), normalize(description), available);
+        Document previous = documents.put(itemId, document);
+        Set<String> grams = document.grams();
+        if (previous != null) {
+            for (String gram : previous.grams()) {
+                if (!grams.contains(gram)) {
+                    removePosting(gram, itemId);
+                }
+            }
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(itemId);
+        }
+        if (previous != null) {
+            previous.suggestedTokens().forEach(nameTokens::remove);
+        }
+        document.suggestedTokens().forEach(nameTokens::add);
+        Set<String> tokens = document.tokens();
+        if (previous != null) {
+            nameTokenCount -= previous.nameTokens.length;
+            descriptionTokenCount -= previous.descriptionTokens.length;
+            for (String token : previous.tokens()) {
+                if (!tokens.contains(token)) {
+                    removeTokenPosting(token, itemId);
+                }
+            }
+        }
+        nameTokenCount += document.nameTokens.length;
+        descriptionTokenCount += document.descriptionTokens.length;
+        for (String token : tokens) {
+            tokenPostings.computeIfAbsent(token, key -> {
+                for (String gram : paddedGrams(token)) {
+                    tokenGrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(token);
+                }
+                return ConcurrentHashMap.newKeySet();
+            }).add(itemId);
+        }
+    }
+
+    public synchronized void remove(long itemId) {
+        if (!ready) {
+            changedDuringWarmUp.add(itemId);
+        }
+        Document previous = documents.remove(itemId);
+        if (previous != null) {
+            for (String gram : previous.grams()) {
+                removePosting(gram, itemId);
+            }
+            nameTokenCount -= previous.nameTokens.length;
+            descriptionTokenCount -= previous.descriptionTokens.length;
+            for (String token : previous.tokens()) {
+                removeTokenPosting(token, itemId);
+            }
+            previous.suggestedTokens().forEach(nameTokens::remove);
+        }
+    }
+
+    public Optional<List<Long>> search(String text, int from, int size) {
+        String query = normalize(text);
+        if (!ready || query.length() < GRAM_LENGTH) {
+            return Optional.empty();
+        }
+        List<Set<Long>> postingLists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return Optional.of(Collections.emptyList());
+            }
+            postingLists.add(itemIds);
+        }
+        postingLists.sort(Comparator.comparingInt(Set::size));
+        List<Long> candidates = new ArrayList<>(postingLists.get(0));
+        Collections.sort(candidates);
+        List<Long> found = new ArrayList<>();
+        int skipped = 0;
+        for (Long itemId : candidates) {
+            if (!containedInAll(postingLists, itemId)) {
+                continue;
+            }
+            Document document = documents.get(itemId);
+            if (document == null || !document.matches(query)) {
+                continue;
+            }
+            if (skipped < from) {
+                skipped++;
+                continue;
+            }
+            found.add(itemId);
+            if (found.size() == size) {
+                break;
+            }
+        }
+        return Optional.of(found);
+    }
+
+    public Optional<List<Long>> searchRanked(String text, int from, int size) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(normalize(text))));
+        if (!ready) {
+            return Optional.empty();
+        }
+        int documentCount = documents.size();
+        if (queryTokens.isEmpty() || documentCount == 0) {
+            return Optional.of(Collections.emptyList());
+        }
+        double avgNameLength = Math.max(1.0, (double) nameTokenCount / documentCount);
+        double avgDescriptionLength = Math.max(1.0, (double) descriptionTokenCount / documentCount);
+        Map<Long, Double> scores = new HashMap<>();
+        for (String queryToken : queryTokens) {
+            Map<Long, Double> tokenScores = new HashMap<>();
+            for (Map.Entry<String, Double> term : expand(queryToken).entrySet()) {
+                Set<Long> itemIds = tokenPostings.get(term.getKey());
+                if (itemIds == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - itemIds.size() + 0.5) / (itemIds.size() + 0.5));
+                for (Long itemId : itemIds) {
+                    Document document = documents.get(itemId);
+                    if (document == null || !document.available) {
+                        continue;
+                    }
+                    double score = term.getValue() * idf
+                            * (NAME_WEIGHT * bm25(document.nameTokens, term.getKey(), avgNameLength)
+                            + DESCRIPTION_WEIGHT * bm25(document.descriptionTokens, term.getKey(),
+                            avgDescriptionLength));
+                    tokenScores.merge(itemId, score, Math::max);
+                }
+            }
+            tokenScores.forEach((itemId, score) -> scores.merge(itemId, score, Double::sum));
+        }
+        Comparator<Map.Entry<Long, Double>> byRelevance = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        int limit = from + size;
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, byRelevance);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> found = new ArrayList<>();
+        while (!top.isEmpty()) {
+            found.add(top.poll().getKey());
+        }
+        Collections.reverse(found);
+        return Optional.of(found.subList(Math.min(from, found.size()), found.size()));
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        String normalizedPrefix = normalize(prefix);
+        List<String> prefixTokens = tokenize(normalizedPrefix);
+        if (prefixTokens.isEmpty() || !normalizedPrefix.endsWith(prefixTokens.get(prefixTokens.size() - 1))) {
+            return Collections.emptyList();
+        }
+        String lastToken = prefixTokens.get(prefixTokens.size() - 1);
+        String head = normalizedPrefix.substring(0, normalizedPrefix.length() - lastToken.length());
+        return nameTokens.suggest(lastToken, Math.min(size, MAX_SUGGESTIONS)).stream()
+                .map(token -> head + token)
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Double> expand(String queryToken) {
+        Map<String, Double> terms = new HashMap<>();
+        if (tokenPostings.containsKey(queryToken)) {
+            terms.put(queryToken, 1.0);
+        }
+        if (queryToken.length() < GRAM_LENGTH) {
+            return terms;
+        }
+        Set<String> candidates = new HashSet<>();
+        for (String gram : paddedGrams(queryToken)) {
+            candidates.addAll(tokenGrams.getOrDefault(gram, Collections.emptySet()));
+        }
+        for (String candidate : candidates) {
+            if (!terms.containsKey(candidate) && isOneEditAway(queryToken, candidate)) {
+                terms.put(candidate, TYPO_PENALTY);
+            }
+        }
+        return terms;
+    }
+
+    private static double bm25(String[] fieldTokens, String term, double avgLength) {
+        int termFrequency = 0;
+        for (String token : fieldTokens) {
+            if (token.equals(term)) {
+                termFrequency++;
+            }
+        }
+        if (termFrequency == 0) {
+            return 0;
+        }
+        return termFrequency * (K1 + 1)
+                / (termFrequency + K1 * (1 - B + B * fieldTokens.length / avgLength));
+    }
+
+    static boolean isOneEditAway(String first, String second) {
+        int firstLength = first.length();
+        int secondLength = second.length();
+        if (Math.abs(firstLength - secondLength) > 1 || first.equals(second)) {
+            return false;
+        }
+        int prefix = 0;
+        while (prefix < Math.min(firstLength, secondLength) && first.charAt(prefix) == second.charAt(prefix)) {
+            prefix++;
+        }
+        if (firstLength == secondLength) {
+            String firstRest = first.substring(prefix + 1);
+            String secondRest = second.substring(prefix + 1);
+            if (firstRest.equals(secondRest)) {
+                return true;
+            }
+            return prefix + 1 < firstLength
+                    && first.charAt(prefix) == second.charAt(prefix + 1)
+                    && first.charAt(prefix + 1) == second.charAt(prefix)
+                    && first.substring(prefix + 2).equals(second.substring(prefix + 2));
+        }
+        return firstLength > secondLength
+                ? first.substring(prefix + 1).equals(second.substring(prefix))
+                : second.substring(prefix + 1).equals(first.substring(prefix));
+    }
+
+    static List<String> tokenize(String normalizedText) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(normalizedText)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replace('ё', 'е')
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static Set<String> paddedGrams(String token) {
+        return grams("$" + token + "$");
+    }
+
+    private static boolean containedInAll(List<Set<Long>> postingLists, Long itemId) {
+        for (int i = 1; i < postingLists.size(); i++) {
+            if (!postingLists.get(i).contains(itemId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removePosting(String gram, long itemId) {
+        postings.computeIfPresent(gram, (key, itemIds) -> {
+            itemIds.remove(itemId);
+            return itemIds.isEmpty() ? null : itemIds;
+        });
+    }
+
+    private void removeTokenPosting(String token, long itemId) {
+        Set<Long> itemIds = tokenPostings.computeIfPresent(token, (key, ids) -> {
+            ids.remove(itemId);
+            return ids.isEmpty() ? null : ids;
+        });
+        if (itemIds == null) {
+            for (String gram : paddedGrams(token)) {
+                tokenGrams.computeIfPresent(gram, (key, tokens) -> {
+                    tokens.remove(token);
+                    return tokens.isEmpty() ? null : tokens;
+                });
+            }
+        }
+    }
+
+    private static final class Document {
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final String[] nameTokens;
+        private final String[] descriptionTokens;
+
+        private Document(String name, String description, boolean available) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+            this.nameTokens = tokenize(name).toArray(new String[0]);
+            this.descriptionTokens = tokenize(description).toArray(new String[0]);
+        }
+
+        private boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+
+        private Set<String> suggestedTokens() {
+            return available ? new HashSet<>(Arrays.asList(nameTokens)) : Collections.emptySet();
+        }
+
+        private Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(Arrays.asList(nameTokens));
+            tokens.addAll(Arrays.asList(descriptionTokens));
+            return tokens;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+final class NameTokenTrie {
+    private static final Comparator<Node> BY_POPULARITY = Comparator.<Node>comparingInt(node -> node.count)
+            .reversed()
+            .thenComparing(node -> node.word);
+
+    private final int topSize;
+    private final Node root = new Node("");
+
+    NameTokenTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    synchronized void add(String token) {
+        Node node = root;
+        node.top = null;
+        for (int i = 0; i < token.length(); i++) {
+            char letter = token.charAt(i);
+            String word = token.substring(0, i + 1);
+            node = node.children.computeIfAbsent(letter, key -> new Node(word));
+            node.top = null;
+        }
+        node.count++;
+    }
+
+    synchronized void remove(String token) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < token.length(); i++) {
+            node = node.children.get(token.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path.add(node);
+        }
+        if (node.count == 0) {
+            return;
+        }
+        node.count--;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            current.top = null;
+            if (i > 0 && current.count == 0 && current.children.isEmpty()) {
+                path.get(i - 1).children.remove(token.charAt(i - 1));
+            }
+        }
+    }
+
+    synchronized List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        return top(node).stream()
+                .limit(limit)
+                .map(top -> top.word)
+                .collect(Collectors.toList());
+    }
+
+    private List<Node> top(Node node) {
+        if (node.top != null) {
+            return node.top;
+        }
+        List<Node> candidates = new ArrayList<>();
+        if (node.count > 0) {
+            candidates.add(node);
+        }
+        for (Node child : node.children.values()) {
+            candidates.addAll(top(child));
+        }
+        candidates.sort(BY_POPULARITY);
+        node.top = new ArrayList<>(candidates.subList(0, Math.min(topSize, candidates.size())));
+        return node.top;
+    }
+
+    private static final class Node {
+        private final String word;
+        private final Map<Character, Node> children = new HashMap<>();
+        private int count;
+        private List<Node> top;
+
+        private Node(String word) {
+            this.word = word;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.FreeWindow;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+@Component
+@RequiredArgsConstructor
+public class ItemAvailabilityCalendar {
+    private final BookingRepository bookingRepository;
+    private final Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> calendars =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, NavigableMap<LocalDateTime, LocalDateTime>> e) {
+                    return size() > maxItems;
+                }
+            };
+    @Value("${shareit.items.calendar-size:10000}")
+    private int maxItems;
+    private long generation;
+
+    public List<FreeWindow> findFreeWindows(long itemId, LocalDateTime from, LocalDateTime to, LocalDateTime now) {
+        NavigableMap<LocalDateTime, LocalDateTime> busy = getBusyIntervals(itemId, now);
+        List<FreeWindow> windows = new ArrayList<>();
+        LocalDateTime cursor = from;
+        Map.Entry<LocalDateTime, LocalDateTime> before = busy.floorEntry(from);
+        if (before != null && before.getValue().isAfter(cursor)) {
+            cursor = before.getValue();
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> interval : busy.subMap(from, false, to, false).entrySet()) {
+            if (interval.getKey().isAfter(cursor)) {
+                windows.add(new FreeWindow(cursor, interval.getKey()));
+            }
+            if (interval.getValue().isAfter(cursor)) {
+                cursor = interval.getValue();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            windows.add(new FreeWindow(cursor, to));
+        }
+        return windows;
+    }
+
+    public synchronized void add(long itemId, LocalDateTime start, LocalDateTime end) {
+        generation++;
+        NavigableMap<LocalDateTime, LocalDateTime> busy = calendars.get(itemId);
+        if (busy != null) {
+            busy.put(start, end);
+        }
+    }
+
+    public synchronized void remove(long itemId, LocalDateTime start) {
+        generation++;
+        NavigableMap<LocalDateTime, LocalDateTime> busy = calendars.get(itemId);
+        if (busy != null) {
+            busy.remove(start);
+        }
+    }
+
+    public synchronized void evict(long itemId) {
+        generation++;
+        calendars.remove(itemId);
+    }
+
+    private NavigableMap<LocalDateTime, LocalDateTime> getBusyIntervals(long itemId, LocalDateTime now) {
+        long loadGeneration;
+        synchronized (this) {
+            NavigableMap<LocalDateTime, LocalDateTime> busy = calendars.get(itemId);
+            if (busy != null) {
+                while (!busy.isEmpty() && !busy.firstEntry().getValue().isAfter(now)) {
+                    busy.pollFirstEntry();
+                }
+                return new TreeMap<>(busy);
+            }
+            loadGeneration = generation;
+        }
+        NavigableMap<LocalDateTime, LocalDateTime> loaded = new TreeMap<>();
+        for (Booking booking : bookingRepository.findAllByItemIdAndStatusAndEndAfter(itemId, Status.APPROVED, now)) {
+            loaded.put(booking.getStart(), booking.getEnd());
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                calendars.put(itemId, new TreeMap<>(loaded));
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class ItemBookingResolver {
+    private static final BinaryOperator<Booking> LATER_ID = (b1, b2) -> b1.getId() > b2.getId() ? b1 : b2;
+    private static final BinaryOperator<Booking> EARLIER_ID = (b1, b2) -> b1.getId() < b2.getId() ? b1 : b2;
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+
+    public Map<Long, Booking> findLastBookings(Collection<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Booking> lastBookings = groupByItemId(
+                bookingRepository.findLastByItemIds(itemIds, Status.APPROVED, now), LATER_ID);
+        List<Long> withoutHot = itemIds.stream()
+                .filter(itemId -> !lastBookings.containsKey(itemId))
+                .collect(Collectors.toList());
+        if (!withoutHot.isEmpty()) {
+            archivedBookingRepository.findLastByItemIds(withoutHot, Status.APPROVED, now).stream()
+                    .map(ItemBookingResolver::toBooking)
+                    .forEach(booking -> lastBookings.merge(booking.getItem().getId(), booking, LATER_ID));
+        }
+        return lastBookings;
+    }
+
+    public Optional<Booking> findArchivedBooking(long bookingId) {
+        return archivedBookingRepository.findWithItemAndBookerById(bookingId).map(ItemBookingResolver::toBooking);
+    }
+
+    public Map<Long, Booking> findNextBookings(Collection<Long> itemIds, LocalDateTime now,
+                                               Map<Long, Booking> lastBookings) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Booking> nextBookings = groupByItemId(
+                bookingRepository.findNextByItemIds(itemIds, Status.APPROVED, now), EARLIER_ID);
+        List<Booking> overlapped = lastBookings.values().stream()
+                .filter(lastBooking -> {
+                    Booking nextBooking = nextBookings.get(lastBooking.getItem().getId());
+                    return nextBooking != null && !nextBooking.getStart().isAfter(lastBooking.getEnd());
+                })
+                .collect(Collectors.toList());
+        if (!overlapped.isEmpty()) {
+            overlapped.forEach(lastBooking -> nextBookings.remove(lastBooking.getItem().getId()));
+            List<Long> overlappedIds = overlapped.stream().map(Booking::getId).collect(Collectors.toList());
+            nextBookings.putAll(groupByItemId(
+                    bookingRepository.findNextAfterBookings(overlappedIds, Status.APPROVED), EARLIER_ID));
+        }
+        return nextBookings;
+    }
+
+    private static Booking toBooking(ArchivedBooking archived) {
+        return Booking.builder()
+                .id(archived.getId())
+                .start(archived.getStart())
+                .end(archived.getEnd())
+                .item(archived.getItem())
+                .booker(archived.getBooker())
+                .status(archived.getStatus())
+                .version(archived.getVersion())
+                .build();
+    }
+
+    private Map<Long, Booking> groupByItemId(List<Booking> bookings, BinaryOperator<Booking> onSameStart) {
+        return bookings.stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), booking -> booking, onSameStart));
+    }
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.FreeWindow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.utils.PageCursor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -15,7 +19,15 @@ public interface ItemService {
 
     List<Item> getItemsByOwnerId(long ownerId, int from, int size);
 
-    List<Item> getItemsByNameOrDescription(String text, int from, int size);
+    List<Item> getItemsByOwnerId(long ownerId, PageCursor after, int size);
+
+    List<ItemListEntry> getItemsByNameOrDescription(String text, int from, int size);
+
+    List<ItemListEntry> getItemsByRelevance(String text, int from, int size);
+
+    List<String> getNameSuggestions(String prefix, int size);
+
+    List<FreeWindow> getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
 
     Comment addComment(long bookerId, long itemId, Comment comment);
 }
@@ -1,27 +1,40 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.FreeWindow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.model.ItemView;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemViewRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestCustom;
+import ru.practicum.shareit.utils.RetryOnConflict;
+import ru.practicum.shareit.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,11 +42,21 @@ import java.util.stream.Collectors;
 @Slf4j
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int AVAILABILITY_DEFAULT_DAYS = 30;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemBookingResolver itemBookingResolver;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemAvailabilityCalendar availabilityCalendar;
+    private final ItemViewRepository itemViewRepository;
+    private final ItemViewUpdater itemViewUpdater;
+    @Value("${shareit.items.comments-limit:0}")
+    private int commentsLimit;
 
     private User findUserByIdOrThrow(long userId) {
         return userRepository.findById(userId).orElseThrow(() ->
@@ -56,12 +79,14 @@ public class ItemServiceImpl implements ItemService {
                             new NotFoundException("itemRequest с id=" + requestId + " не найдена")));
         }
         Item newItem = itemRepository.save(item);
+        TransactionHooks.afterCommit(() -> itemSearchIndex.index(newItem));
         log.info("создана item - {}, requests - {}", newItem, newItem.getRequest());
         return newItem;
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public Item update(Item item, long userId) {
         Item updatedItem = findItemByIdOrThrow(item.getId());
         if (updatedItem.getOwner().getId() != userId) {
@@ -84,6 +109,7 @@ public class ItemServiceImpl implements ItemService {
         if (item.getAvailable() != null) {
             updatedItem.setAvailable(item.getAvailable());
         }
+        TransactionHooks.afterCommit(() -> itemSearchIndex.index(updatedItem));
         log.info("обновлена item - {} request - {}", updatedItem, updatedItem.getRequest());
         return updatedItem;
     }
@@ -92,42 +118,107 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     public void delete(long id) {
         itemRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> {
+            itemSearchIndex.remove(id);
+            availabilityCalendar.evict(id);
+        });
         log.info("удалена item - {}", id);
     }
 
     @Override
     public Item getById(long itemId, long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<ItemView> view = itemViewRepository.findById(itemId)
+                .filter(itemView -> itemView.getRefreshAt() == null || itemView.getRefreshAt().isAfter(now));
+        Item fullItem = view.isPresent()
+                ? getByIdFromView(view.get(), userId)
+                : getByIdLive(itemId, userId, now);
+        log.info("получена item - {} {} request - {}", itemId, fullItem, fullItem.getRequest());
+        return fullItem;
+    }
+
+    private Item getByIdFromView(ItemView view, long userId) {
+        Item item = view.getItem();
+        boolean isOwner = item.getOwner().getId() == userId;
+        User user = isOwner ? item.getOwner() : findUserByIdOrThrow(userId);
+        List<Comment> comments = commentsLimit > 0
+                ? commentRepository.findAllByItemIdOrderByCreatedDesc(item.getId(), PageRequest.of(0, commentsLimit))
+                : commentRepository.findAllByItemId(item.getId());
+        Booking lastBooking = null;
+        Booking nextBooking = null;
+        if (isOwner) {
+            lastBooking = view.getLastBooking();
+            nextBooking = view.getNextBooking();
+            if (lastBooking == null && view.getLastBookingId() != null) {
+                lastBooking = itemBookingResolver.findArchivedBooking(view.getLastBookingId()).orElse(null);
+            }
+        }
+        return constructFullItem(item, user, lastBooking, nextBooking, comments, view.getCommentCount());
+    }
+
+    private Item getByIdLive(long itemId, long userId, LocalDateTime now) {
         User user = findUserByIdOrThrow(userId);
         Item item = findItemByIdOrThrow(itemId);
         List<Comment> comments = commentRepository.findAllByItemId(itemId);
-        Item fullItem = constructFullItem(item, user, comments);
-        log.info("получена item - {} {} request - {}", itemId, fullItem, fullItem.getRequest());
-        return fullItem;
+        Booking lastBooking = null;
+        Booking nextBooking = null;
+        if (item.getOwner().getId() == user.getId()) {
+            Map<Long, Booking> lastBookings = itemBookingResolver.findLastBookings(List.of(itemId), now);
+            lastBooking = lastBookings.get(itemId);
+            nextBooking = itemBookingResolver.findNextBookings(List.of(itemId), now, lastBookings).get(itemId);
+        }
+        return constructFullItem(item, user, lastBooking, nextBooking, comments, comments.size());
     }
 
     @Override
     public List<Item> getItemsByOwnerId(long ownerId, int from, int size) {
         User user = findUserByIdOrThrow(ownerId);
         Pageable page = PageRequestCustom.get(from, size);
-        List<Item> itemList = itemRepository.findAllByOwnerIdOrderById(ownerId, page);
+        List<Item> fullItemList = constructFullItems(itemRepository.findAllByOwnerIdOrderById(ownerId, page), user);
+        log.info("получена page from={} size={} cо всеми вещами для ownerId={} {}",
+                from, size, ownerId, fullItemList);
+        return fullItemList;
+    }
+
+    @Override
+    public List<Item> getItemsByOwnerId(long ownerId, PageCursor after, int size) {
+        User user = findUserByIdOrThrow(ownerId);
+        List<Item> fullItemList = constructFullItems(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(
+                ownerId, after.getId(), PageRequest.of(0, size)), user);
+        log.info("получена page after={} size={} cо всеми вещами для ownerId={} {}",
+                after, size, ownerId, fullItemList);
+        return fullItemList;
+    }
+
+    private List<Item> constructFullItems(List<ItemListEntry> itemList, User user) {
         List<Long> itemIds = itemList.stream()
-                .map(item -> item.getId()).collect(Collectors.toList());
-        List<Comment> comments = commentRepository.findAllByItemIds(itemIds);
+                .map(ItemListEntry::getId).collect(Collectors.toList());
+        Map<Long, List<Comment>> commentsByItemId = commentRepository.findAllByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Booking> lastBookings = itemBookingResolver.findLastBookings(itemIds, now);
+        Map<Long, Booking> nextBookings = itemBookingResolver.findNextBookings(itemIds, now, lastBookings);
         List<Item> fullItemList = new ArrayList<>();
-        for (Item item : itemList) {
-            fullItemList.add(constructFullItem(item, user, comments));
+        for (ItemListEntry entry : itemList) {
+            Item item = Item.builder()
+                    .id(entry.getId())
+                    .name(entry.getName())
+                    .description(entry.getDescription())
+                    .available(entry.getAvailable())
+                    .owner(user)
+                    .request(entry.getRequestId() != null
+                            ? itemRequestRepository.getReferenceById(entry.getRequestId()) : null)
+                    .build();
+            List<Comment> comments = commentsByItemId.getOrDefault(item.getId(), Collections.emptyList());
+            fullItemList.add(constructFullItem(item, user,
+                    lastBookings.get(item.getId()), nextBookings.get(item.getId()),
+                    comments, comments.size()));
         }
-        log.info("получена page from={} size={} cо всеми вещами для ownerId={} {}",
-                from, size, ownerId, fullItemList);
         return fullItemList;
     }
 
-    private Item constructFullItem(Item item, User user, List<Comment> comments) {
-        Booking lastBooking = bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDescItemIdDesc(
-                item.getId(), Status.APPROVED, LocalDateTime.now()).orElse(null);
-        LocalDateTime from = (lastBooking == null) ? LocalDateTime.now() : lastBooking.getEnd();
-        Booking nextBooking = bookingRepository.findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(
-                item.getId(), Status.APPROVED, from).orElse(null);
+    private Item constructFullItem(Item item, User user, Booking lastBooking, Booking nextBooking,
+                                   List<Comment> comments, int commentCount) {
         log.info("lastbooking={}", lastBooking);
         log.info("nextbooking={}", nextBooking);
 
@@ -140,28 +231,109 @@ public class ItemServiceImpl implements ItemService {
                 .request(item.getRequest() != null ? item.getRequest() : null)
                 .lastBooking(item.getOwner().getId() == user.getId() ? lastBooking : null)
                 .nextBooking(item.getOwner().getId() == user.getId() ? nextBooking : null)
-                .comments(comments)
+                .comments(limitComments(comments))
+                .commentsCount(commentCount)
                 .build();
     }
 
+    private List<Comment> limitComments(List<Comment> comments) {
+        if (commentsLimit <= 0 || comments.size() <= commentsLimit) {
+            return comments;
+        }
+        return comments.stream()
+                .sorted(Comparator.comparing(Comment::getCreated).reversed())
+                .limit(commentsLimit)
+                .collect(Collectors.toList());
+    }
+
     @Override
-    public List<Item> getItemsByNameOrDescription(String text, int from, int size) {
+    public List<ItemListEntry> getItemsByNameOrDescription(String text, int from, int size) {
         if (text.isEmpty()) {
             log.info("вещей для nameOrdescription={} нет", text);
             return Collections.emptyList();
         }
-        Pageable page = PageRequestCustom.get(from, size);
-        List<Item> itemList = itemRepository
-                .findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-                        text,text,true, page);
+        Optional<List<Long>> foundIds = itemSearchIndex.search(text, from, size);
+        List<ItemListEntry> itemList;
+        if (foundIds.isPresent()) {
+            itemList = findAllByIdsInOrder(foundIds.get());
+        } else {
+            Pageable page = PageRequestCustom.get(from, size);
+            itemList = itemRepository.searchAvailable(escapeLike(text), page);
+        }
         log.info("получена page from={} size={} со всеми вещами для nameOrdescription={} {}",
                 from, size, text, itemList);
         return itemList;
     }
 
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     @Override
+    public List<ItemListEntry> getItemsByRelevance(String text, int from, int size) {
+        if (text.isBlank()) {
+            log.info("вещей для nameOrdescription={} нет", text);
+            return Collections.emptyList();
+        }
+        Optional<List<Long>> rankedIds = itemSearchIndex.searchRanked(text, from, size);
+        if (rankedIds.isEmpty()) {
+            return getItemsByNameOrDescription(text, from, size);
+        }
+        List<ItemListEntry> itemList = findAllByIdsInOrder(rankedIds.get());
+        log.info("получена page from={} size={} с вещами по релевантности для nameOrdescription={} {}",
+                from, size, text, itemList);
+        return itemList;
+    }
+
+    @Override
+    public List<String> getNameSuggestions(String prefix, int size) {
+        List<String> suggestions = itemSearchIndex.suggest(prefix, size);
+        log.info("получены подсказки для prefix={} {}", prefix, suggestions);
+        return suggestions;
+    }
+
+    private List<ItemListEntry> findAllByIdsInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ItemListEntry> itemsById = itemRepository.findAllByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ItemListEntry::getId, item -> item));
+        List<ItemListEntry> itemList = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            ItemListEntry item = itemsById.get(itemId);
+            if (item != null) {
+                itemList.add(item);
+            } else {
+                itemSearchIndex.remove(itemId);
+            }
+        }
+        return itemList;
+    }
+
+    @Override
+    public List<FreeWindow> getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        Item item = findItemByIdOrThrow(itemId);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = from == null || from.isBefore(now) ? now : from;
+        LocalDateTime windowEnd = to == null ? windowStart.plusDays(AVAILABILITY_DEFAULT_DAYS) : to;
+        if (!windowStart.isBefore(windowEnd)) {
+            throw new ValidationException("Окончание периода должно быть позже его начала и текущего времени");
+        }
+        if (!item.getAvailable()) {
+            log.info("item с id={} недоступна для бронирования, свободных окон нет", itemId);
+            return Collections.emptyList();
+        }
+        List<FreeWindow> windows = availabilityCalendar.findFreeWindows(itemId, windowStart, windowEnd, now);
+        log.info("получены свободные окна для item с id={} с {} по {} - {}", itemId, windowStart, windowEnd, windows);
+        return windows;
+    }
+
+    @Override
+    @Transactional
     public Comment addComment(long bookerId, long itemId, Comment comment) {
-        if (bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(bookerId, itemId, LocalDateTime.now()).isEmpty())
+        LocalDateTime now = LocalDateTime.now();
+        if (bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(bookerId, itemId, now).isEmpty()
+                && !archivedBookingRepository.existsByBookerIdAndItemIdAndEndBefore(bookerId, itemId, now))
             throw new ValidationException("У данного пользователя нет бронирований");
 
         User user = userRepository.findById(bookerId).orElseThrow(() ->
@@ -172,6 +344,7 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(user);
         comment.setCreated(LocalDateTime.now());
         Comment savedComment = commentRepository.save(comment);
+        itemViewUpdater.incrementCommentCount(itemId);
         log.info("сохранен комментарий {}", savedComment);
         return savedComment;
     }
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.repository.ItemViewRepository;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemViewUpdater {
+    private final ItemViewRepository itemViewRepository;
+    private final ItemBookingResolver itemBookingResolver;
+    private final ItemLocks itemLocks;
+    @Value("${shareit.items.view-refresh-chunk-size:500}")
+    private int chunkSize;
+
+    public void refresh(Collection<Long> itemIds) {
+        itemLocks.lockAllUntilCompletion(itemIds);
+        List<ItemView> views = itemViewRepository.findAllById(itemIds);
+        if (views.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Booking> lastBookings = itemBookingResolver.findLastBookings(itemIds, now);
+        Map<Long, Booking> nextBookings = itemBookingResolver.findNextBookings(itemIds, now, lastBookings);
+        for (ItemView view : views) {
+            Booking nextBooking = nextBookings.get(view.getItemId());
+            view.setLastBooking(lastBookings.get(view.getItemId()));
+            view.setNextBooking(nextBooking);
+            view.setRefreshAt(nextBooking == null ? null : nextBooking.getStart());
+        }
+        log.info("обновлены представления вещей {}", itemIds);
+    }
+
+    public void incrementCommentCount(long itemId) {
+        itemViewRepository.incrementCommentCount(itemId);
+    }
+
+    @Transactional
+    @Scheduled(cron = "${shareit.items.view-refresh-cron:0 * * * * *}")
+    public void refreshStale() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int created = itemViewRepository.insertMissing(now, chunkSize);
+        List<Long> staleIds = itemViewRepository.findStaleItemIds(now, PageRequest.of(0, chunkSize));
+        if (!staleIds.isEmpty()) {
+            refresh(staleIds);
+        }
+        if (created > 0 || !staleIds.isEmpty()) {
+            log.info("создано {} и обновлено {} представлений вещей", created, staleIds.size());
+        }
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.utils.PageCursor;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
@@ -36,17 +39,26 @@ public class ItemRequestController {
     @ResponseStatus(HttpStatus.OK)
     public List<ItemRequestDto> getAllByRequesterId(@RequestHeader(name = "X-Sharer-User-Id") long requesterId) {
         log.info("GET /requests X-Sharer-User-Id={}", requesterId);
-        return mapper.toItemRequestDto(service.getAllByRequesterId(requesterId));
+        return mapper.toListItemRequestDto(service.getAllByRequesterId(requesterId));
     }
 
     @GetMapping("/all")
     @ResponseStatus(HttpStatus.OK)
     public List<ItemRequestDto> getAll(@RequestHeader(name = "X-Sharer-User-Id") long userId,
                                 @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                @RequestParam(defaultValue = "20") @Positive int size) {
-        log.info("GET /requests/all?from={{}}&size={{}} X-Sharer-User-Id={}",
-                from, size, userId);
-        return mapper.toItemRequestDto(service.getAll(userId, from, size));
+                                @RequestParam(defaultValue = "20") @Positive int size,
+                                @RequestParam(required = false) String after,
+                                HttpServletResponse response) {
+        log.info("GET /requests/all?from={{}}&size={{}}&after={{}} X-Sharer-User-Id={}",
+                from, size, after, userId);
+        List<ItemRequestListEntry> itemRequests = after == null
+                ? service.getAll(userId, from, size)
+                : service.getAll(userId, PageCursor.decode(after), size);
+        if (itemRequests.size() == size) {
+            ItemRequestListEntry last = itemRequests.get(size - 1);
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(last.getCreated(), last.getId()).encode());
+        }
+        return mapper.toListItemRequestDto(itemRequests);
     }
 
     @GetMapping("/{requestId}")
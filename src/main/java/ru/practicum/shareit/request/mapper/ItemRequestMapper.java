@@ -3,20 +3,26 @@ package ru.practicum.shareit.request.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
 import ru.practicum.shareit.request.dto.ItemInRequestField;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import java.util.List;
 
 @Mapper (componentModel = "spring")
 public interface ItemRequestMapper {
     ItemRequestDto toItemRequestDto(ItemRequest itemRequest);
 
-    List<ItemRequestDto> toItemRequestDto(List<ItemRequest> itemRequest);
+    ItemRequestDto toItemRequestDto(ItemRequestListEntry entry);
+
+    List<ItemRequestDto> toListItemRequestDto(List<ItemRequestListEntry> entries);
 
     @Mapping(target = "items", ignore = true)
     ItemRequest toItemRequest(ItemRequestDto itemRequestDto);
 
     @Mapping(target = "requestId", source = "request.id")
     ItemInRequestField toItemInRequestField(Item item);
+
+    ItemInRequestField toItemInRequestField(ItemListEntry entry);
 }
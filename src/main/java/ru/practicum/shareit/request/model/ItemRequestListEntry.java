@@ -0,0 +1,16 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@RequiredArgsConstructor
+public class ItemRequestListEntry {
+    private final long id;
+    private final String description;
+    private final LocalDateTime created;
+    private List<ItemListEntry> items;
+}
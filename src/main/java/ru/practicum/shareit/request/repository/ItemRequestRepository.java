@@ -2,13 +2,34 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository
         extends JpaRepository<ItemRequest, Long>, PagingAndSortingRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(long requesterId);
+    @Query("select new ru.practicum.shareit.request.model.ItemRequestListEntry(r.id, r.description, r.created) " +
+            "from ItemRequest as r " +
+            "where r.requester.id = :requesterId " +
+            "order by r.created desc")
+    List<ItemRequestListEntry> findAllByRequesterIdOrderByCreatedDesc(@Param("requesterId") long requesterId);
 
-    List<ItemRequest> findAllByRequesterIdNot(long requesterId, Pageable pageable);
+    @Query("select new ru.practicum.shareit.request.model.ItemRequestListEntry(r.id, r.description, r.created) " +
+            "from ItemRequest as r " +
+            "where r.requester.id <> :requesterId")
+    List<ItemRequestListEntry> findAllByRequesterIdNot(@Param("requesterId") long requesterId, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.request.model.ItemRequestListEntry(r.id, r.description, r.created) " +
+            "from ItemRequest as r " +
+            "where r.requester.id <> :requesterId " +
+            "and (r.created > :created or (r.created = :created and r.id > :id)) " +
+            "order by r.created, r.id")
+    List<ItemRequestListEntry> findAllByRequesterIdNotAfter(@Param("requesterId") long requesterId,
+                                                            @Param("created") LocalDateTime created,
+                                                            @Param("id") long id,
+                                                            Pageable pageable);
 }
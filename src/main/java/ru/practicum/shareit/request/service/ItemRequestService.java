@@ -1,14 +1,18 @@
 package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
+import ru.practicum.shareit.utils.PageCursor;
 import java.util.List;
 
 public interface ItemRequestService {
     ItemRequest create(ItemRequest toItemRequest, long userId);
 
-    List<ItemRequest> getAllByRequesterId(long requesterId);
+    List<ItemRequestListEntry> getAllByRequesterId(long requesterId);
 
-    List<ItemRequest> getAll(long userId, int from, int size);
+    List<ItemRequestListEntry> getAll(long userId, int from, int size);
+
+    List<ItemRequestListEntry> getAll(long userId, PageCursor after, int size);
 
     ItemRequest getById(long userId, long requestId);
 }
@@ -2,17 +2,26 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestCustom;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,6 +30,7 @@ import java.util.List;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserRepository userRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
 
     @Override
     @Transactional
@@ -35,25 +45,43 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
-    public List<ItemRequest> getAllByRequesterId(long requesterId) {
+    public List<ItemRequestListEntry> getAllByRequesterId(long requesterId) {
         userRepository.findById(requesterId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id=" + requesterId + " не найден"));
-        List<ItemRequest> itemRequestList = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(requesterId);
+        List<ItemRequestListEntry> itemRequestList =
+                itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(requesterId);
+        attachItems(itemRequestList);
         log.info("получены запросы - {} для пользователя с id={}", itemRequestList, requesterId);
         return itemRequestList;
     }
 
     @Override
-    public List<ItemRequest> getAll(long userId, int from, int size) {
+    public List<ItemRequestListEntry> getAll(long userId, int from, int size) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
         Pageable page = PageRequestCustom.get(from, size, "created");
-        List<ItemRequest> itemRequestList = itemRequestRepository.findAllByRequesterIdNot(userId, page);
+        List<ItemRequestListEntry> itemRequestList = itemRequestRepository.findAllByRequesterIdNot(userId, page);
+        attachItems(itemRequestList);
         log.info("получена page from={} size={} с запросами других пользователей - {} для пользователя с id={}",
                 from / size, size, itemRequestList, userId);
         return itemRequestList;
     }
 
+    @Override
+    public List<ItemRequestListEntry> getAll(long userId, PageCursor after, int size) {
+        userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
+        if (after.getKey() == null) {
+            throw new ValidationException("Некорректный cursor для запросов: " + after.encode());
+        }
+        List<ItemRequestListEntry> itemRequestList = itemRequestRepository.findAllByRequesterIdNotAfter(userId,
+                after.getKey(), after.getId(), PageRequest.of(0, size));
+        attachItems(itemRequestList);
+        log.info("получена page after={} size={} с запросами других пользователей - {} для пользователя с id={}",
+                after, size, itemRequestList, userId);
+        return itemRequestList;
+    }
+
     @Override
     public ItemRequest getById(long userId, long requestId) {
         userRepository.findById(userId)
@@ -64,4 +92,18 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 itemRequest, userId);
         return itemRequest;
     }
+
+    private void attachItems(List<ItemRequestListEntry> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return;
+        }
+        List<Long> requestIds = itemRequests.stream()
+                .map(ItemRequestListEntry::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemListEntry>> itemsByRequestId = itemRepository.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemListEntry::getRequestId));
+        for (ItemRequestListEntry itemRequest : itemRequests) {
+            itemRequest.setItems(itemsByRequestId.getOrDefault(itemRequest.getId(), Collections.emptyList()));
+        }
+    }
 }
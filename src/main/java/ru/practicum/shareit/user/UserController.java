@@ -1,19 +1,36 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.ComponentScan;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.interfaces.CreateUser;
 import ru.practicum.shareit.user.interfaces.UpdateUser;
 import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.UserListEntry;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 @Slf4j
+@Validated
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -21,12 +38,43 @@ import java.util.List;
 public class UserController {
     private final UserService service;
     private final UserMapper mapper;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<UserDto> getAll() {
-        log.info("GET /users");
-        return mapper.toUserDto(service.getAll());
+    public List<UserDto> getAll(@RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                @RequestParam(defaultValue = "20") @Positive int size,
+                                @RequestParam(required = false) String after,
+                                HttpServletResponse response) {
+        log.info("GET /users?from={{}}&size={{}}&after={{}}", from, size, after);
+        List<UserListEntry> users = after == null
+                ? service.getAll(from, size)
+                : service.getAll(PageCursor.decode(after), size);
+        if (users.size() == size) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER,
+                    PageCursor.of(users.get(size - 1).getId()).encode());
+        }
+        return mapper.toListUserDto(users);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("GET /users as {}", APPLICATION_NDJSON_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            service.streamAll(user -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(mapper.toUserDto(user)));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
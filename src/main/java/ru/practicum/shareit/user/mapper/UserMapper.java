@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.mapper;
 
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
 import ru.practicum.shareit.user.dto.UserDto;
 import org.mapstruct.Mapper;
 import java.util.List;
@@ -9,7 +10,9 @@ import java.util.List;
 public interface UserMapper {
     UserDto toUserDto(User user);
 
-    List<UserDto> toUserDto(List<User> user);
+    UserDto toUserDto(UserListEntry entry);
+
+    List<UserDto> toListUserDto(List<UserListEntry> entries);
 
     User toUser(UserDto userDto);
 }
\ No newline at end of file
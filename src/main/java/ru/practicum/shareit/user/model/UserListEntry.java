@@ -0,0 +1,12 @@
+package ru.practicum.shareit.user.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserListEntry {
+    private long id;
+    private String name;
+    private String email;
+}
@@ -1,7 +1,32 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Query("select new ru.practicum.shareit.user.model.UserListEntry(u.id, u.name, u.email) " +
+            "from User as u " +
+            "order by u.id")
+    List<UserListEntry> findAllByOrderById(Pageable page);
+
+    @Query("select new ru.practicum.shareit.user.model.UserListEntry(u.id, u.name, u.email) " +
+            "from User as u " +
+            "where u.id > :id " +
+            "order by u.id")
+    List<UserListEntry> findAllByIdGreaterThanOrderById(@Param("id") long id, Pageable page);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.user.model.UserListEntry(u.id, u.name, u.email) " +
+            "from User as u " +
+            "order by u.id")
+    Stream<UserListEntry> streamAllByOrderById();
 }
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.user.service;
 
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
+import ru.practicum.shareit.utils.PageCursor;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     User create(User user);
@@ -12,5 +15,9 @@ public interface UserService {
 
     User getById(long id);
 
-    List<User> getAll();
+    List<UserListEntry> getAll(int from, int size);
+
+    List<UserListEntry> getAll(PageCursor after, int size);
+
+    void streamAll(Consumer<UserListEntry> action);
 }
@@ -2,12 +2,18 @@ package ru.practicum.shareit.user.service;
 
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.ValidationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestCustom;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -55,7 +61,19 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getAll() {
-        return userRepository.findAll();
+    public List<UserListEntry> getAll(int from, int size) {
+        return userRepository.findAllByOrderById(PageRequestCustom.get(from, size));
+    }
+
+    @Override
+    public List<UserListEntry> getAll(PageCursor after, int size) {
+        return userRepository.findAllByIdGreaterThanOrderById(after.getId(), PageRequest.of(0, size));
+    }
+
+    @Override
+    public void streamAll(Consumer<UserListEntry> action) {
+        try (Stream<UserListEntry> users = userRepository.streamAllByOrderById()) {
+            users.forEach(action);
+        }
     }
 }
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ConflictException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class IdempotencyCache {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            Iterator<Entry> iterator = values().iterator();
+            while (size() > maxEntries && iterator.hasNext()) {
+                if (iterator.next().result.isDone()) {
+                    iterator.remove();
+                }
+            }
+            return false;
+        }
+    };
+    @Value("${shareit.idempotency.cache-size:10000}")
+    private int maxEntries;
+    @Value("${shareit.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+    @Value("${shareit.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMillis;
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, long userId, String key, Object request, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        String cacheKey = scope + ":" + userId + ":" + key;
+        long now = System.currentTimeMillis();
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+            if (entry == null || entry.expiresAt <= now) {
+                entry = new Entry(request, now + ttlSeconds * 1000);
+                entries.put(cacheKey, entry);
+                owner = true;
+            }
+        }
+        if (!entry.request.equals(request)) {
+            throw new ConflictException("Idempotency-Key=" + key + " уже использован с другим телом запроса");
+        }
+        if (!owner) {
+            log.info("повторный запрос с Idempotency-Key={} пользователя с id={}", key, userId);
+            return (T) await(entry, key);
+        }
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            entry.result.completeExceptionally(e);
+            synchronized (entries) {
+                entries.remove(cacheKey, entry);
+            }
+            throw e;
+        }
+    }
+
+    private Object await(Entry entry, String key) {
+        try {
+            return entry.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("Запрос с Idempotency-Key=" + key + " ещё выполняется");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Запрос с Idempotency-Key=" + key + " ещё выполняется");
+        }
+    }
+
+    private static final class Entry {
+        private final Object request;
+        private final long expiresAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(Object request, long expiresAt) {
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package ru.practicum.shareit.utils;
 
+import lombok.EqualsAndHashCode;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
+@EqualsAndHashCode(callSuper = true)
 public class PageRequestCustom extends PageRequest {
-    public PageRequestCustom(int pageNumber, int size, Sort sort) {
-        super(pageNumber, size, sort);
+    private final int from;
+
+    public PageRequestCustom(int from, int size, Sort sort) {
+        super(from / size, size, sort);
+        this.from = from;
+    }
+
+    @Override
+    public long getOffset() {
+        return from;
     }
 
     public static PageRequestCustom get(int from, int size) {
-        return new PageRequestCustom(from / size, size, Sort.unsorted());
+        return new PageRequestCustom(from, size, Sort.unsorted());
     }
 
     public static PageRequestCustom get(int from, int size, String order) {
-        return new PageRequestCustom(from / size, size, Sort.by(order));
+        return new PageRequestCustom(from, size, Sort.by(order));
     }
 }
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+    private int size;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis должен быть положительным, а wheelSize не меньше 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = tickMillis * wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    public synchronized void add(T value, long expirationMillis) {
+        place(new Entry<>(value, expirationMillis));
+        size++;
+    }
+
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMillis <= nowMillis) {
+            List<Entry<T>> bucket = buckets.get(index(currentTime));
+            for (Entry<T> entry : bucket) {
+                expired.add(entry.value);
+            }
+            bucket.clear();
+            currentTime += tickMillis;
+            if (overflowWheel != null) {
+                overflowWheel.cascade(currentTime, this);
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        long expiration = Math.max(entry.expiration, currentTime);
+        if (expiration < currentTime + intervalMillis) {
+            buckets.get(index(expiration)).add(entry);
+        } else {
+            overflow().place(entry);
+        }
+    }
+
+    private void cascade(long time, TimingWheel<T> lower) {
+        if (currentTime + tickMillis > time) {
+            return;
+        }
+        currentTime += tickMillis;
+        if (overflowWheel != null) {
+            overflowWheel.cascade(currentTime, this);
+        }
+        List<Entry<T>> bucket = buckets.get(index(currentTime));
+        List<Entry<T>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        entries.forEach(lower::place);
+    }
+
+    private TimingWheel<T> overflow() {
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(intervalMillis, wheelSize, currentTime);
+        }
+        return overflowWheel;
+    }
+
+    private int index(long time) {
+        return (int) Math.floorMod(time / tickMillis, (long) wheelSize);
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiration;
+
+        private Entry(T value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
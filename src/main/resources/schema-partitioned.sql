@@ -0,0 +1,89 @@
+DROP TABLE IF EXISTS users CASCADE;
+DROP TABLE IF EXISTS requests CASCADE;
+DROP TABLE IF EXISTS items CASCADE;
+DROP TABLE IF EXISTS bookings CASCADE;
+DROP SEQUENCE IF EXISTS bookings_id_seq CASCADE;
+DROP TABLE IF EXISTS bookings_archive CASCADE;
+DROP TABLE IF EXISTS comments CASCADE;
+DROP TABLE IF EXISTS item_views CASCADE;
+
+CREATE TABLE IF NOT EXISTS users (
+    id      INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name    VARCHAR(255) NOT NULL,
+    email   VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS requests (
+    id              INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description     VARCHAR(512) NOT NULL,
+    created         TIMESTAMP WITHOUT TIME ZONE,
+    requester_id    INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255) NOT NULL,
+    available   BOOLEAN DEFAULT TRUE,
+    owner_id    INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    request_id  INTEGER REFERENCES requests(id),
+    version     INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS items_available_id_idx ON items (available, id);
+CREATE INDEX IF NOT EXISTS items_owner_id_id_idx ON items (owner_id, id);
+
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq AS INTEGER;
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id          INTEGER NOT NULL DEFAULT nextval('bookings_id_seq'),
+    start_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date    TIMESTAMP WITHOUT TIME ZONE,
+    item_id     INTEGER NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id   INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status      VARCHAR(50),
+    version     INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+ALTER SEQUENCE bookings_id_seq OWNED BY bookings.id;
+
+CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+
+CREATE INDEX IF NOT EXISTS bookings_id_idx ON bookings (id);
+CREATE INDEX IF NOT EXISTS bookings_item_id_start_date_idx ON bookings (item_id, start_date);
+CREATE INDEX IF NOT EXISTS bookings_item_id_status_start_date_idx ON bookings (item_id, status, start_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_id_start_date_idx ON bookings (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_booker_id_status_start_date_idx ON bookings (booker_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_end_date_idx ON bookings (end_date);
+
+CREATE TABLE IF NOT EXISTS bookings_archive (
+    id          INTEGER PRIMARY KEY,
+    start_date  TIMESTAMP WITHOUT TIME ZONE,
+    end_date    TIMESTAMP WITHOUT TIME ZONE,
+    item_id     INTEGER NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id   INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status      VARCHAR(50),
+    version     INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_item_id_start_date_idx ON bookings_archive (item_id, start_date);
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_id_start_date_idx ON bookings_archive (booker_id, start_date DESC);
+
+CREATE TABLE IF NOT EXISTS comments (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text        VARCHAR(512) NOT NULL,
+    item_id     INTEGER NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    author_id   INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created     TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS item_views (
+    item_id         INTEGER PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
+    last_booking_id INTEGER,
+    next_booking_id INTEGER,
+    comment_count   INTEGER NOT NULL DEFAULT 0,
+    refresh_at      TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS item_views_refresh_at_idx ON item_views (refresh_at);
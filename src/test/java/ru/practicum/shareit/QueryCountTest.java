@@ -0,0 +1,222 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemViewUpdater;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class QueryCountTest {
+    private static final int PAGE = 5;
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    private Statistics statistics;
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+    @Autowired
+    ItemViewUpdater itemViewUpdater;
+    private User owner;
+    private User booker;
+    private User singleRequester;
+    private final List<Item> ownItems = new ArrayList<>();
+    private final List<ItemRequest> bookerRequests = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        owner = persistUser("query-owner");
+        booker = persistUser("query-booker");
+        singleRequester = persistUser("query-single-requester");
+        persistItem(owner, persistRequest(singleRequester));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i <= PAGE; i++) {
+            User otherOwner = persistUser("query-other-owner" + i);
+            User otherBooker = persistUser("query-other-booker" + i);
+            Item ownItem = persistItem(owner, persistRequest(otherBooker));
+            Item otherItem = persistItem(otherOwner, persistRequest(otherBooker));
+            ItemRequest bookerRequest = persistRequest(booker);
+            persistItem(otherOwner, bookerRequest);
+            persistItem(owner, bookerRequest);
+            persistBooking(ownItem, otherBooker, start.plusHours(i));
+            persistBooking(otherItem, booker, start.plusHours(i));
+            for (int j = 0; j <= i; j++) {
+                em.persist(Comment.builder()
+                        .text("text")
+                        .item(ownItem)
+                        .author(otherBooker)
+                        .created(LocalDateTime.now())
+                        .build());
+            }
+            ownItems.add(ownItem);
+            bookerRequests.add(bookerRequest);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private User persistUser(String name) {
+        User user = User.builder().name(name).email(name + "@mail.com").build();
+        em.persist(user);
+        return user;
+    }
+
+    private ItemRequest persistRequest(User requester) {
+        ItemRequest request = ItemRequest.builder()
+                .description("request")
+                .created(LocalDateTime.now())
+                .requester(requester)
+                .build();
+        em.persist(request);
+        return request;
+    }
+
+    private Item persistItem(User itemOwner, ItemRequest request) {
+        Item item = Item.builder()
+                .name("item")
+                .description("description")
+                .available(Boolean.TRUE)
+                .owner(itemOwner)
+                .request(request)
+                .build();
+        em.persist(item);
+        return item;
+    }
+
+    private void persistBooking(Item item, User itemBooker, LocalDateTime start) {
+        em.persist(Booking.builder()
+                .start(start)
+                .end(start.plusDays(1))
+                .item(item)
+                .booker(itemBooker)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private long countStatements(String url, long userId, int size) throws Exception {
+        em.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)
+                        .header("X-Sharer-User-Id", userId)
+                        .param("from", "0")
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(size)));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStatements(String url, long userId) throws Exception {
+        em.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void assertConstantInPageSize(String url, long userId) throws Exception {
+        long single = countStatements(url, userId, 1);
+        assertThat(single, greaterThan(0L));
+        assertThat(countStatements(url, userId, PAGE), equalTo(single));
+    }
+
+    @Test
+    void shouldGetBookerBookingsWithConstantStatements() throws Exception {
+        assertConstantInPageSize("/bookings", booker.getId());
+        assertThat(countStatements("/bookings", booker.getId(), PAGE), equalTo(2L));
+    }
+
+    @Test
+    void shouldGetOwnerBookingsWithConstantStatements() throws Exception {
+        assertConstantInPageSize("/bookings/owner", owner.getId());
+    }
+
+    @Test
+    void shouldCountBookingsByStateInOneStatement() throws Exception {
+        assertThat(countStatements("/bookings/stats", booker.getId()), equalTo(2L));
+        assertThat(countStatements("/bookings/owner/stats", owner.getId()), equalTo(2L));
+    }
+
+    @Test
+    void shouldGetOwnerItemsWithConstantStatements() throws Exception {
+        assertConstantInPageSize("/items", owner.getId());
+    }
+
+    @Test
+    void shouldSearchItemsWithConstantStatements() throws Exception {
+        ownItems.forEach(item -> itemSearchIndex.index(item.getId(), "query drill", "description", true));
+        try {
+            assertConstantInPageSize("/items/search?text=drill", owner.getId());
+            assertThat(countStatements("/items/search?text=drill", owner.getId(), PAGE), equalTo(1L));
+        } finally {
+            ownItems.forEach(item -> itemSearchIndex.remove(item.getId()));
+        }
+        assertConstantInPageSize("/items/search?text=it", owner.getId());
+    }
+
+    @Test
+    void shouldGetItemWithStatementsIndependentOfComments() throws Exception {
+        Item fewComments = ownItems.get(0);
+        Item manyComments = ownItems.get(PAGE);
+        long live = countStatements("/items/" + fewComments.getId(), owner.getId());
+        assertThat(countStatements("/items/" + manyComments.getId(), owner.getId()), equalTo(live));
+        itemViewUpdater.refreshStale();
+        em.flush();
+        long fromView = countStatements("/items/" + fewComments.getId(), owner.getId());
+        assertThat(countStatements("/items/" + manyComments.getId(), owner.getId()), equalTo(fromView));
+        assertThat(fromView, equalTo(2L));
+    }
+
+    @Test
+    void shouldGetOwnRequestsWithStatementsIndependentOfRequests() throws Exception {
+        long single = countStatements("/requests", singleRequester.getId());
+        assertThat(countStatements("/requests", booker.getId()), equalTo(single));
+    }
+
+    @Test
+    void shouldGetRequestWithStatementsIndependentOfItems() throws Exception {
+        long single = countStatements("/requests/" + bookerRequests.get(0).getId(), owner.getId());
+        persistItem(owner, bookerRequests.get(0));
+        persistItem(owner, bookerRequests.get(0));
+        em.flush();
+        assertThat(countStatements("/requests/" + bookerRequests.get(0).getId(), owner.getId()), equalTo(single));
+    }
+
+    @Test
+    void shouldGetOtherRequestsWithItemsInThreeStatementsPerPage() throws Exception {
+        assertConstantInPageSize("/requests/all", owner.getId());
+        assertThat(countStatements("/requests/all", owner.getId(), PAGE), equalTo(3L));
+    }
+}
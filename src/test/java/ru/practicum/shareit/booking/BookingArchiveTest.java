@@ -0,0 +1,206 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingArchiveService;
+import ru.practicum.shareit.booking.service.BookingExpiryService;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.service.ItemBookingResolver;
+import ru.practicum.shareit.item.service.ItemViewUpdater;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestCustom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@DataJpaTest
+@Import({BookingArchiveService.class, ItemBookingResolver.class, BookingServiceImpl.class})
+public class BookingArchiveTest {
+    @Autowired
+    TestEntityManager em;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    BookingArchiveService archiveService;
+    @Autowired
+    ItemBookingResolver itemBookingResolver;
+    @Autowired
+    BookingService bookingService;
+    @MockBean
+    ItemLocks itemLocks;
+    @MockBean
+    ItemAvailabilityCalendar availabilityCalendar;
+    @MockBean
+    ItemViewUpdater itemViewUpdater;
+    @MockBean
+    BookingExpiryService bookingExpiry;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        owner = em.persist(BookingRepositoryTest.createOwner());
+        booker = em.persist(BookingRepositoryTest.createBooker());
+        item = em.persist(BookingRepositoryTest.createItem(owner));
+        for (int i = 0; i < 5; i++) {
+            Booking booking = em.persist(BookingRepositoryTest.createBooking(item, booker));
+            booking.setStatus(Status.APPROVED);
+            em.flush();
+            em.getEntityManager().createNativeQuery("UPDATE bookings SET start_date = ?, end_date = ? WHERE id = ?")
+                    .setParameter(1, now.minusMonths(12 + i).minusDays(1))
+                    .setParameter(2, now.minusMonths(12 + i))
+                    .setParameter(3, booking.getId())
+                    .executeUpdate();
+            ids.add(booking.getId());
+        }
+        Booking recent = em.persist(BookingRepositoryTest.createBooking(item, booker));
+        ids.add(0, recent.getId());
+        em.flush();
+        em.clear();
+        ReflectionTestUtils.setField(archiveService, "chunkSize", 2);
+    }
+
+    @Test
+    void shouldMoveEndedBookingsToArchiveInChunks() {
+        assertThat(archiveService.archiveEndedBefore(now.minusMonths(12).minusDays(1)), equalTo(4));
+        em.clear();
+        assertThat(bookingRepository.findAll().size(), equalTo(2));
+        assertThat(archivedBookingRepository.findAll().stream()
+                .map(archived -> archived.getId())
+                .sorted()
+                .collect(Collectors.toList()), equalTo(ids.subList(2, 6)));
+        assertThat(archivedBookingRepository.existsByBookerIdAndItemIdAndEndBefore(booker.getId(), item.getId(),
+                now), equalTo(true));
+    }
+
+    @Test
+    void shouldReadArchiveAfterHotBookings() {
+        archiveService.archiveEndedBefore(now.minusMonths(12).minusDays(1));
+        em.clear();
+        List<Long> all = new ArrayList<>();
+        for (int from = 0; from < 6; from += 4) {
+            Slice<BookingListEntry> page = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.ALL, now,
+                    PageRequestCustom.get(from, 4));
+            assertThat(page.hasNext(), equalTo(from == 0));
+            page.forEach(booking -> all.add(booking.getId()));
+        }
+        assertThat(all, equalTo(ids));
+        Map<State, Long> stats = bookingRepository.countByState(Role.BOOKER, booker.getId(), now);
+        assertThat(stats.get(State.ALL), equalTo(6L));
+        assertThat(stats.get(State.PAST), equalTo(5L));
+        Slice<BookingListEntry> beyondHot = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.PAST, now,
+                PageRequestCustom.get(3, 2));
+        assertThat(beyondHot.getContent().stream().map(BookingListEntry::getId).collect(Collectors.toList()),
+                equalTo(ids.subList(4, 6)));
+        assertThat(bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.FUTURE, now,
+                PageRequestCustom.get(0, 10)).getContent().size(), equalTo(1));
+        BookingListEntry archived = beyondHot.getContent().get(0);
+        assertThat(archived.getItemName(), equalTo("item"));
+        assertThat(archived.getBookerId(), equalTo(booker.getId()));
+        assertThat(archived.getStatus(), equalTo(Status.APPROVED));
+    }
+
+    @Test
+    void shouldContinueCursorPagesIntoArchive() {
+        archiveService.archiveEndedBefore(now.minusMonths(12).minusDays(1));
+        em.clear();
+        List<Long> all = new ArrayList<>();
+        PageCursor after = PageCursor.of(now.plusYears(1), Long.MAX_VALUE);
+        List<BookingListEntry> page;
+        do {
+            page = bookingRepository.findAllByStateAfter(Role.OWNER, owner.getId(), State.ALL, now, after, 4);
+            page.forEach(booking -> all.add(booking.getId()));
+            if (!page.isEmpty()) {
+                BookingListEntry last = page.get(page.size() - 1);
+                after = PageCursor.of(last.getStart(), last.getId());
+            }
+        } while (page.size() == 4);
+        assertThat(all, equalTo(ids));
+    }
+
+    @Test
+    void shouldReadHotBookingsBeforeArchivedOnes() {
+        Booking longRunning = em.persist(BookingRepositoryTest.createBooking(item, booker));
+        em.flush();
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET start_date = ? WHERE id = ?")
+                .setParameter(1, now.minusMonths(15))
+                .setParameter(2, longRunning.getId())
+                .executeUpdate();
+        archiveService.archiveEndedBefore(now.minusMonths(12).minusDays(1));
+        em.clear();
+        List<Long> expected = new ArrayList<>(ids);
+        expected.add(2, longRunning.getId());
+        List<Long> byOffset = new ArrayList<>();
+        for (int from = 0; from < 7; from += 3) {
+            bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.ALL, now,
+                    PageRequestCustom.get(from, 3)).forEach(booking -> byOffset.add(booking.getId()));
+        }
+        assertThat(byOffset, equalTo(expected));
+        List<Long> byCursor = new ArrayList<>();
+        PageCursor after = PageCursor.of(now.plusYears(1), Long.MAX_VALUE);
+        List<BookingListEntry> page;
+        do {
+            page = bookingRepository.findAllByStateAfter(Role.BOOKER, booker.getId(), State.ALL, now, after, 3);
+            page.forEach(booking -> byCursor.add(booking.getId()));
+            if (!page.isEmpty()) {
+                BookingListEntry last = page.get(page.size() - 1);
+                after = PageCursor.of(last.getStart(), last.getId());
+            }
+        } while (page.size() == 3);
+        assertThat(byCursor, equalTo(expected));
+    }
+
+    @Test
+    void shouldGetArchivedBookingById() {
+        archiveService.archiveEndedBefore(now.minusMonths(12).minusDays(1));
+        em.clear();
+        Booking archived = bookingService.getById(ids.get(2), booker.getId());
+        assertThat(archived.getId(), equalTo(ids.get(2)));
+        assertThat(archived.getItem().getOwner().getId(), equalTo(owner.getId()));
+        assertThat(bookingService.getById(ids.get(2), owner.getId()).getBooker().getId(), equalTo(booker.getId()));
+    }
+
+    @Test
+    void shouldFindLastBookingInArchiveWhenHotTableHasNone() {
+        assertThat(itemBookingResolver.findLastBookings(List.of(item.getId()), now).get(item.getId()).getId(),
+                equalTo(ids.get(1)));
+        archiveService.archiveEndedBefore(now);
+        em.clear();
+        Booking last = itemBookingResolver.findLastBookings(List.of(item.getId()), now).get(item.getId());
+        assertThat(last.getId(), equalTo(ids.get(1)));
+        assertThat(last.getItem().getName(), equalTo("item"));
+        assertThat(last.getBooker().getId(), equalTo(booker.getId()));
+        assertThat(itemBookingResolver.findArchivedBooking(ids.get(1)).map(Booking::getStart),
+                equalTo(Optional.of(last.getStart())));
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class BookingConcurrencyTest {
+    private static final int BOOKINGS = 8;
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    UserRepository userRepository;
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userRepository.save(User.builder()
+                .name("owner")
+                .email("concurrency-owner@mail.com")
+                .build());
+        booker = userRepository.save(User.builder()
+                .name("booker")
+                .email("concurrency-booker@mail.com")
+                .build());
+        item = itemRepository.save(Item.builder()
+                .name("item")
+                .description("description")
+                .available(Boolean.TRUE)
+                .owner(owner)
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookings.add(bookingRepository.save(Booking.builder()
+                    .start(start.plusHours(i))
+                    .end(start.plusHours(i + BOOKINGS))
+                    .item(item)
+                    .booker(booker)
+                    .status(Status.WAITING)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void afterEach() {
+        bookingRepository.deleteAllByIdInBatch(bookings.stream().map(Booking::getId).collect(Collectors.toList()));
+        itemRepository.deleteById(item.getId());
+        userRepository.delete(booker);
+        userRepository.delete(owner);
+    }
+
+    @Test
+    void shouldApproveOnlyOneOfOverlappingBookingsUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKINGS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Booking booking : bookings) {
+                Callable<Boolean> approve = () -> {
+                    startSignal.await();
+                    try {
+                        bookingService.updateStatus(owner.getId(), booking.getId(), true);
+                        return true;
+                    } catch (ValidationException e) {
+                        return false;
+                    }
+                };
+                results.add(executor.submit(approve));
+            }
+            startSignal.countDown();
+            int approved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    approved++;
+                }
+            }
+            assertThat(approved, equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+        long approvedInDb = bookingRepository.findAllById(
+                        bookings.stream().map(Booking::getId).collect(Collectors.toList()))
+                .stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .count();
+        assertThat(approvedInDb, equalTo(1L));
+    }
+}
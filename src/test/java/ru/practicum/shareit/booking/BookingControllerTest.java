@@ -7,20 +7,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.model.BookingStatusUpdate;
+import ru.practicum.shareit.booking.model.BookingStatusUpdateResult;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageCursor;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,7 +44,7 @@ public class BookingControllerTest {
     BookingService bookingService;
     private Booking booking;
     private BookingRequestDto requestDto;
-    private List<Booking> bookings;
+    private List<BookingListEntry> bookings;
 
     static BookingRequestDto createBookingRequest() {
         return BookingRequestDto.builder()
@@ -76,7 +86,7 @@ public class BookingControllerTest {
     void beforeEach() {
         booking = createBooking();
         requestDto = createBookingRequest();
-        bookings = List.of(booking);
+        bookings = List.of(BookingServiceTest.createBookingListEntry(booking));
     }
 
     @Test
@@ -95,12 +105,32 @@ public class BookingControllerTest {
                         jsonPath("$.item.name").value("item"),
                         jsonPath("$.status").value("WAITING"),
                         jsonPath("$.booker.id").value(1),
-                        jsonPath("$.booker.name").value("booker"),
+                        jsonPath("$.booker.name").doesNotExist(),
                         jsonPath("$.start").isNotEmpty(),
                         jsonPath("$.end").isNotEmpty()
                 );
     }
 
+    @Test
+    void shouldCreateBookingOnceForRepeatedIdempotencyKey() throws Exception {
+        when(bookingService.createBooking(any(), anyLong(), anyLong()))
+                .thenReturn(booking);
+        String json = mapper.writeValueAsString(requestDto);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", booking.getBooker().getId())
+                            .header("Idempotency-Key", "booking-retry")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpectAll(
+                            status().isCreated(),
+                            jsonPath("$.id").value(1),
+                            jsonPath("$.status").value("WAITING")
+                    );
+        }
+        verify(bookingService, times(1)).createBooking(any(), anyLong(), anyLong());
+    }
+
     @Test
     void shouldNotCreateBookingWithoutUserId() throws Exception {
         when(bookingService.createBooking(any(), anyLong(), anyLong()))
@@ -126,7 +156,7 @@ public class BookingControllerTest {
                         jsonPath("$.item.name").value("item"),
                         jsonPath("$.status").value("WAITING"),
                         jsonPath("$.booker.id").value(1),
-                        jsonPath("$.booker.name").value("booker"),
+                        jsonPath("$.booker.name").doesNotExist(),
                         jsonPath("$.start").isNotEmpty(),
                         jsonPath("$.end").isNotEmpty()
                 );
@@ -157,7 +187,7 @@ public class BookingControllerTest {
                         jsonPath("$.item.name").value("item"),
                         jsonPath("$.status").value("WAITING"),
                         jsonPath("$.booker.id").value(1),
-                        jsonPath("$.booker.name").value("booker"),
+                        jsonPath("$.booker.name").doesNotExist(),
                         jsonPath("$.start").isNotEmpty(),
                         jsonPath("$.end").isNotEmpty()
                 );
@@ -223,4 +253,134 @@ public class BookingControllerTest {
                 .andExpect(status().is5xxServerError());
         verify(bookingService, never()).getAllByOwnerItems(anyLong(), any(), anyInt(), anyInt());
     }
+
+    @Test
+    void shouldGetAllBookingsAfterCursorWithNextCursorHeader() throws Exception {
+        PageCursor after = PageCursor.of(booking.getStart().plusDays(1), 5);
+        when(bookingService.getAllByUser(1L, "ALL", after, 1))
+                .thenReturn(bookings);
+        mockMvc.perform(get("/bookings")
+                        .param("size", "1")
+                        .param("after", after.encode())
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        header().string(PageCursor.NEXT_CURSOR_HEADER,
+                                PageCursor.of(booking.getStart(), booking.getId()).encode())
+                );
+        verify(bookingService, never()).getAllByUser(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldNotSetNextCursorHeaderOnLastPage() throws Exception {
+        when(bookingService.getAllByOwnerItems(anyLong(), any(), anyInt(), anyInt()))
+                .thenReturn(bookings);
+        mockMvc.perform(get("/bookings/owner")
+                        .param("size", "2")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().isOk(),
+                        header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER)
+                );
+    }
+
+    @Test
+    void shouldSetEndCursorHeaderOnBookerCurrentOffsetPage() throws Exception {
+        when(bookingService.getAllByUser(1L, "CURRENT", 0, 1))
+                .thenReturn(bookings);
+        mockMvc.perform(get("/bookings")
+                        .param("state", "CURRENT")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        header().string(PageCursor.NEXT_CURSOR_HEADER,
+                                PageCursor.of(booking.getEnd(), booking.getId()).encode())
+                );
+    }
+
+    @Test
+    void shouldNotGetAllBookingsWithMalformedCursor() throws Exception {
+        mockMvc.perform(get("/bookings/owner")
+                        .param("after", "not a cursor")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(bookingService, never()).getAllByOwnerItems(anyLong(), any(), any(PageCursor.class), anyInt());
+    }
+
+    @Test
+    void shouldReturnConflictWhenStatusUpdateKeepsConflicting() throws Exception {
+        when(bookingService.updateStatus(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, booking.getId()));
+        mockMvc.perform(patch("/bookings/1")
+                        .param("approved", "true")
+                        .header("X-Sharer-User-Id", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldGetBookingStats() throws Exception {
+        Map<State, Long> stats = new EnumMap<>(State.class);
+        stats.put(State.ALL, 3L);
+        stats.put(State.REJECTED, 1L);
+        when(bookingService.getStatsByUser(anyLong()))
+                .thenReturn(stats);
+        when(bookingService.getStatsByOwnerItems(anyLong()))
+                .thenReturn(stats);
+        mockMvc.perform(get("/bookings/stats")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpectAll(status().isOk(),
+                        jsonPath("$.ALL").value(3),
+                        jsonPath("$.REJECTED").value(1));
+        mockMvc.perform(get("/bookings/owner/stats")
+                        .header("X-Sharer-User-Id", "2"))
+                .andExpectAll(status().isOk(),
+                        jsonPath("$.ALL").value(3));
+        verify(bookingService).getStatsByUser(1L);
+        verify(bookingService).getStatsByOwnerItems(2L);
+        verify(bookingService, never()).getById(anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldUpdateStatusesInBatch() throws Exception {
+        when(bookingService.updateStatuses(anyLong(), any()))
+                .thenReturn(List.of(new BookingStatusUpdateResult(1, Status.APPROVED, null),
+                        new BookingStatusUpdateResult(2, null, "not found")));
+        List<BookingStatusUpdateDto> updates = List.of(
+                BookingStatusUpdateDto.builder().bookingId(1L).approved(true).build(),
+                BookingStatusUpdateDto.builder().bookingId(2L).approved(false).build());
+        mockMvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updates)))
+                .andExpectAll(status().isOk(),
+                        jsonPath("$", hasSize(2)),
+                        jsonPath("$[0].bookingId").value(1),
+                        jsonPath("$[0].status").value("APPROVED"),
+                        jsonPath("$[0].error").isEmpty(),
+                        jsonPath("$[1].bookingId").value(2),
+                        jsonPath("$[1].error").value("not found"));
+        verify(bookingService, times(1)).updateStatuses(2L,
+                List.of(new BookingStatusUpdate(1, true), new BookingStatusUpdate(2, false)));
+        verify(bookingService, never()).updateStatus(anyLong(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    void shouldNotUpdateStatusesInBatchWithInvalidBody() throws Exception {
+        mockMvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"bookingId\": 1}]"))
+                .andExpect(status().isBadRequest());
+        verify(bookingService, never()).updateStatuses(anyLong(), any());
+    }
 }
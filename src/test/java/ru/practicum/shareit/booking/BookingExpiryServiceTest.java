@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.BookingDeadline;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingExpiryService;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingExpiryServiceTest {
+    private final LocalDateTime now = LocalDateTime.now();
+    private BookingRepository bookingRepository;
+    private BookingExpiryService expiryService;
+
+    @BeforeEach
+    void beforeEach() {
+        bookingRepository = mock(BookingRepository.class);
+        expiryService = new BookingExpiryService(bookingRepository);
+        ReflectionTestUtils.setField(expiryService, "batchSize", 2);
+    }
+
+    @Test
+    void shouldExpireRehydratedBookingsInBatches() {
+        when(bookingRepository.findDeadlinesByStatusAndIdAfter(eq(Status.WAITING), eq(0L), any()))
+                .thenReturn(List.of(new BookingDeadline(1, now.minusHours(1)),
+                        new BookingDeadline(2, now.plusMinutes(1))));
+        when(bookingRepository.findDeadlinesByStatusAndIdAfter(eq(Status.WAITING), eq(2L), any()))
+                .thenReturn(List.of(new BookingDeadline(3, now.plusMinutes(2)),
+                        new BookingDeadline(4, now.plusMinutes(3))));
+        when(bookingRepository.findDeadlinesByStatusAndIdAfter(eq(Status.WAITING), eq(4L), any()))
+                .thenReturn(List.of(new BookingDeadline(5, now.plusDays(1))));
+        when(bookingRepository.updateStatusIfStarted(anyCollection(), eq(Status.WAITING), eq(Status.EXPIRED), any()))
+                .thenAnswer(invocationOnMock -> invocationOnMock.<List<Long>>getArgument(0).size());
+        expiryService.rehydrate();
+        LocalDateTime later = now.plusMinutes(5);
+        assertThat(expiryService.expireStarted(later), equalTo(4));
+        verify(bookingRepository).updateStatusIfStarted(List.of(1L, 2L), Status.WAITING, Status.EXPIRED, later);
+        verify(bookingRepository).updateStatusIfStarted(List.of(3L, 4L), Status.WAITING, Status.EXPIRED, later);
+        assertThat(expiryService.expireStarted(later.plusMinutes(1)), equalTo(0));
+        verify(bookingRepository, times(3)).findDeadlinesByStatusAndIdAfter(eq(Status.WAITING), anyLong(), any());
+    }
+
+    @Test
+    void shouldRescheduleBookingsWhenExpiryFails() {
+        expiryService.schedule(1, now.minusMinutes(3));
+        expiryService.schedule(2, now.minusMinutes(2));
+        expiryService.schedule(3, now.minusMinutes(1));
+        when(bookingRepository.updateStatusIfStarted(anyCollection(), eq(Status.WAITING), eq(Status.EXPIRED), any()))
+                .thenReturn(2)
+                .thenThrow(new RuntimeException("connection lost"))
+                .thenAnswer(invocationOnMock -> invocationOnMock.<List<Long>>getArgument(0).size());
+        assertThrows(RuntimeException.class, () -> expiryService.expireStarted(now.plusSeconds(2)));
+        LocalDateTime later = now.plusSeconds(5);
+        assertThat(expiryService.expireStarted(later), equalTo(1));
+        verify(bookingRepository).updateStatusIfStarted(List.of(3L), Status.WAITING, Status.EXPIRED, later);
+    }
+
+    @Test
+    void shouldNotExpireBookingsBeforeStart() {
+        expiryService.schedule(1, now.plusHours(1));
+        assertThat(expiryService.expireStarted(now.plusMinutes(59)), equalTo(0));
+        verify(bookingRepository, never()).updateStatusIfStarted(anyCollection(), any(), any(), any());
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import javax.persistence.EntityManager;
+import java.math.BigInteger;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.booking.BookingIndexUsageTest$CapturedStatements")
+public class BookingIndexUsageTest {
+    @Autowired
+    TestEntityManager em;
+    @Autowired
+    BookingRepository bookingRepository;
+
+    public static class CapturedStatements implements StatementInspector {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        EntityManager entityManager = em.getEntityManager();
+        BigInteger bookings = (BigInteger) entityManager.createNativeQuery("SELECT COUNT(*) FROM bookings")
+                .getSingleResult();
+        if (bookings.signum() > 0) {
+            return;
+        }
+        entityManager.createNativeQuery("INSERT INTO users (name, email) " +
+                "SELECT 'user' || x, 'user' || x || '@mail.com' FROM SYSTEM_RANGE(1, 50)").executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO items (name, description, available, owner_id) " +
+                "SELECT 'item' || x, 'description', TRUE, MOD(x, 50) + 1 FROM SYSTEM_RANGE(1, 500)").executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "SELECT DATEADD('HOUR', x - 5000, LOCALTIMESTAMP), DATEADD('HOUR', x - 4998, LOCALTIMESTAMP), " +
+                "MOD(x, 500) + 1, MOD(x, 50) + 1, " +
+                "CASE MOD(x, 4) WHEN 0 THEN 'WAITING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END " +
+                "FROM SYSTEM_RANGE(1, 10000)").executeUpdate();
+        // ANALYZE commits, so the rows stay in the database of this test context only
+        entityManager.createNativeQuery("ANALYZE").executeUpdate();
+    }
+
+    private String explainListQuery(Role role, State state) {
+        CapturedStatements.STATEMENTS.clear();
+        bookingRepository.findAllByState(role, 1L, state, LocalDateTime.now(), PageRequest.of(0, 20));
+        String sql = CapturedStatements.STATEMENTS.get(0);
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    statement.setNull(i, parameters.getParameterType(i));
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1).replaceAll("\\s+", " ").toUpperCase();
+                }
+            }
+        });
+    }
+
+    @Test
+    void shouldJoinOwnerItemsThroughIndexes() {
+        String plan = explainListQuery(Role.OWNER, State.FUTURE);
+        assertThat(plan, containsString("OWNER_ID = 1 */"));
+        assertThat(plan, containsString("BOOKINGS_ITEM_ID_START_DATE_IDX: ITEM_ID = ITEM1_.ID AND START_DATE > ?"));
+        assertThat(plan, not(containsString("TABLESCAN")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = State.class, names = {"CURRENT", "PAST", "FUTURE"})
+    void shouldFilterBookerBookingsByTimeThroughStartDateIndex(State state) {
+        String plan = explainListQuery(Role.BOOKER, state);
+        assertThat(plan, containsString("BOOKINGS_BOOKER_ID_START_DATE_IDX: BOOKER_ID = 1"));
+        assertThat(plan, not(containsString("TABLESCAN")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = State.class, names = {"WAITING", "REJECTED", "EXPIRED"})
+    void shouldFilterBookerBookingsByStatusThroughStatusIndex(State state) {
+        String plan = explainListQuery(Role.BOOKER, state);
+        assertThat(plan, containsString("BOOKINGS_BOOKER_ID_STATUS_START_DATE_IDX: BOOKER_ID = 1 AND STATUS = ?"));
+        assertThat(plan, not(containsString("TABLESCAN")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = State.class, names = {"CURRENT", "PAST", "FUTURE"})
+    void shouldFilterOwnerBookingsByTimeThroughStartDateIndex(State state) {
+        String plan = explainListQuery(Role.OWNER, state);
+        assertThat(plan, containsString("OWNER_ID = 1 */"));
+        assertThat(plan, containsString("BOOKINGS_ITEM_ID_START_DATE_IDX: ITEM_ID = ITEM1_.ID"));
+        assertThat(plan, not(containsString("TABLESCAN")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = State.class, names = {"WAITING", "REJECTED", "EXPIRED"})
+    void shouldFilterOwnerBookingsByStatusThroughStatusIndex(State state) {
+        String plan = explainListQuery(Role.OWNER, state);
+        assertThat(plan, containsString("OWNER_ID = 1 */"));
+        assertThat(plan, containsString("BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX: ITEM_ID = ITEM1_.ID AND STATUS = ?"));
+        assertThat(plan, not(containsString("TABLESCAN")));
+    }
+
+    @Test
+    void shouldLookUpAllBookingsByUser() {
+        // H2 ranks the foreign key indexes equal to ours here, so only the lookup column is asserted
+        String bookerPlan = explainListQuery(Role.BOOKER, State.ALL);
+        assertThat(bookerPlan, containsString("BOOKER_ID = 1 */"));
+        assertThat(bookerPlan, not(containsString("TABLESCAN")));
+        String ownerPlan = explainListQuery(Role.OWNER, State.ALL);
+        assertThat(ownerPlan, containsString("ITEM_ID = ITEM1_.ID */"));
+        assertThat(ownerPlan, not(containsString("TABLESCAN")));
+    }
+}
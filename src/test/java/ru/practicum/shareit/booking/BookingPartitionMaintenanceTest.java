@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.service.BookingPartitionMaintenance;
+import java.time.YearMonth;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingPartitionMaintenanceTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final BookingPartitionMaintenance maintenance =
+            new BookingPartitionMaintenance(jdbcTemplate, new TransactionTemplate(transactionManager));
+
+    @Test
+    void shouldCreateMonthlyPartitionsAhead() {
+        ReflectionTestUtils.setField(maintenance, "monthsAhead", 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+        maintenance.createPartitions(YearMonth.of(2030, 11));
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_2030_11 PARTITION OF bookings "
+                + "FOR VALUES FROM ('2030-11-01') TO ('2030-12-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_2030_12 PARTITION OF bookings "
+                + "FOR VALUES FROM ('2030-12-01') TO ('2031-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_2031_01 PARTITION OF bookings "
+                + "FOR VALUES FROM ('2031-01-01') TO ('2031-02-01')");
+        verify(jdbcTemplate, times(3)).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    void shouldMoveRowsFromDefaultPartitionIntoNewPartitions() {
+        ReflectionTestUtils.setField(maintenance, "monthsAhead", 1);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("2031-05", "2030-12"));
+        maintenance.createPartitions(YearMonth.of(2030, 11));
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_2030_11 PARTITION OF bookings "
+                + "FOR VALUES FROM ('2030-11-01') TO ('2030-12-01')");
+        for (String month : List.of("2030_12", "2031_05")) {
+            verify(jdbcTemplate).execute("CREATE TABLE bookings_" + month
+                    + " (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        }
+        verify(jdbcTemplate, times(2)).update(startsWith("WITH moved AS (DELETE FROM bookings_default"));
+        verify(jdbcTemplate).update("WITH moved AS (DELETE FROM bookings_default "
+                + "WHERE start_date >= '2031-05-01' AND start_date < '2031-06-01' "
+                + "RETURNING *) INSERT INTO bookings_2031_05 SELECT * FROM moved");
+        verify(jdbcTemplate).execute("ALTER TABLE bookings ATTACH PARTITION bookings_2030_12 "
+                + "FOR VALUES FROM ('2030-12-01') TO ('2031-01-01')");
+        verify(jdbcTemplate).execute("ALTER TABLE bookings ATTACH PARTITION bookings_2031_05 "
+                + "FOR VALUES FROM ('2031-05-01') TO ('2031-06-01')");
+        verify(jdbcTemplate, times(3)).execute(startsWith("CREATE TABLE"));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void shouldFailWhenPartitionCannotBeCreated() {
+        ReflectionTestUtils.setField(maintenance, "monthsAhead", 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("2030-12"));
+        doThrow(new DataIntegrityViolationException("partition constraint is violated by some row"))
+                .when(jdbcTemplate).execute(startsWith("ALTER TABLE bookings ATTACH PARTITION bookings_2030_12 "));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> maintenance.createPartitions(YearMonth.of(2030, 11)));
+        verify(transactionManager).rollback(any());
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+    }
+}
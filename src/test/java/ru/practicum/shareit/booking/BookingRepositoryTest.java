@@ -6,15 +6,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestCustom;
+import javax.persistence.OptimisticLockException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
 public class BookingRepositoryTest {
@@ -60,6 +74,12 @@ public class BookingRepositoryTest {
                 .build();
     }
 
+    static List<Long> ids(List<BookingListEntry> bookings) {
+        return bookings.stream()
+                .map(BookingListEntry::getId)
+                .collect(Collectors.toList());
+    }
+
     @BeforeEach
     void beforeEach() {
         owner = createOwner();
@@ -74,175 +94,433 @@ public class BookingRepositoryTest {
 
     @Test
     void shouldFindAllBookingsByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(booker.getId(), PageRequest.of(0,20));
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
+        assertThat(bookings.get(0).getItemId(), equalTo(item.getId()));
+        assertThat(bookings.get(0).getItemName(), equalTo(item.getName()));
+        assertThat(bookings.get(0).getBookerId(), equalTo(booker.getId()));
     }
 
     @Test
     void shouldFindNoneAllBookingsByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdOrderByStartDesc(99L, PageRequest.of(0,20));
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.BOOKER, 99L, State.ALL,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByBookerIdAndStartBeforeAndEndAfter() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByEndDesc(
-                booker.getId(), LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3),
-                PageRequest.of(0,20));
+    void shouldFindCurrentBookingsByBookerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.CURRENT,
+                LocalDateTime.now().plusHours(2), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByBookerIdAndStartBeforeAndEndAfterByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByEndDesc(
-                99L, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3),
-                PageRequest.of(0,20));
+    void shouldOrderBookerCurrentPagesByEnd() {
+        Booking startsLater = createBooking(item, booker);
+        startsLater.setStart(booking.getStart().plusMinutes(30));
+        startsLater.setEnd(booking.getEnd().minusMinutes(30));
+        Booking startsEarlier = createBooking(item, booker);
+        startsEarlier.setStart(booking.getStart().minusMinutes(30));
+        startsEarlier.setEnd(booking.getEnd().plusMinutes(30).truncatedTo(ChronoUnit.MICROS));
+        em.persist(startsLater);
+        em.persist(startsEarlier);
+        LocalDateTime now = LocalDateTime.now().plusHours(2);
+        List<BookingListEntry> page = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.CURRENT,
+                now, PageRequest.of(0, 20)).getContent();
+        List<BookingListEntry> cursorPage = bookingRepository.findAllByStateAfter(Role.BOOKER, booker.getId(),
+                State.CURRENT, now, PageCursor.of(startsEarlier.getEnd(), startsEarlier.getId()), 20);
+        assertThat(ids(page), equalTo(List.of(startsEarlier.getId(), booking.getId(), startsLater.getId())));
+        assertThat(ids(cursorPage), equalTo(List.of(booking.getId(), startsLater.getId())));
+    }
+
+    @Test
+    void shouldFindNoneCurrentBookingsByNoExistBookerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.BOOKER, 99L, State.CURRENT,
+                LocalDateTime.now().plusHours(2), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByBookerIdAndEndBefore() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                booker.getId(), LocalDateTime.now().plusDays(2), PageRequest.of(0,20));
+    void shouldFindPastBookingsByBookerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.PAST,
+                LocalDateTime.now().plusDays(2), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByBookerIdAndEndBeforeByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                99L, LocalDateTime.now().plusDays(2), PageRequest.of(0,20));
+    void shouldFindNonePastBookingsByNoExistBookerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.BOOKER, 99L, State.PAST,
+                LocalDateTime.now().plusDays(2), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByBookerIdAndStartAfter() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(
-                booker.getId(), LocalDateTime.now().minusHours(1), PageRequest.of(0,20));
+    void shouldFindFutureBookingsByBookerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.FUTURE,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByBookerIdAndStartAfterByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(
-                99L, LocalDateTime.now().minusHours(1), PageRequest.of(0,20));
+    void shouldFindNoneFutureBookingsByNoExistBookerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.BOOKER, 99L, State.FUTURE,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByBookerIdAndStatusOrderByStartDesc() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(
-                booker.getId(), Status.WAITING, PageRequest.of(0,20));
+    void shouldFindWaitingBookingsByBookerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.WAITING,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByBookerIdAndStatusOrderByStartDescByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(
-                99L, Status.WAITING, PageRequest.of(0,20));
+    void shouldFindNoneWaitingBookingsByNoExistBookerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.BOOKER, 99L, State.WAITING,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByBookerIdAndItemIdAndEndBefore() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(
-                booker.getId(), item.getId(), LocalDateTime.now().plusDays(2));
+    void shouldFindAllBookingsByOwnerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.ALL,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByBookerIdAndItemIdAndEndBeforeByNoExistBookerId() {
-        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(
-                99L, 11L, LocalDateTime.now().plusDays(2));
+    void shouldFindNoneAllBookingsByNoExistOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, 99L, State.ALL,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByOwnerId() {
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdOrderByStartDesc(
-                owner.getId(), PageRequest.of(0,20));
+    void shouldFindCurrentBookingsByOwnerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.CURRENT,
+                LocalDateTime.now().plusHours(2), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByOwnerIdByNoExistOwnerId() {
-        List<Booking> emptyList = bookingRepository.findAllByOwnerIdOrderByStartDesc(
-                99L, PageRequest.of(0,20));
+    void shouldFindNoneCurrentBookingsByNoExistOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, 99L, State.CURRENT,
+                LocalDateTime.now().plusHours(2), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
-
     @Test
-    void shouldFindAllByOwnerIdAndStartBeforeAndEndAfter() {
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                owner.getId(), LocalDateTime.now().plusMinutes(61), LocalDateTime.now().plusMinutes(62),
-                PageRequest.of(0,20));
+    void shouldFindPastBookingsByOwnerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.PAST,
+                LocalDateTime.now().plusDays(2), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByOwnerIdAndStartBeforeAndEndAfterByNoExistOwnerId() {
-        List<Booking> emptyList = bookingRepository.findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                99L, LocalDateTime.now().plusMinutes(61), LocalDateTime.now().plusMinutes(62),
-                PageRequest.of(0,20));
+    void shouldFindNonePastBookingsByNoExistOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, 99L, State.PAST,
+                LocalDateTime.now().plusDays(2), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByOwnerIdAndEndBefore() {
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndEndBeforeOrderByStartDesc(
-                owner.getId(), LocalDateTime.now().plusDays(2),
-                PageRequest.of(0,20));
+    void shouldFindFutureBookingsByOwnerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.FUTURE,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByOwnerIdAndEndBeforeByNoExistOwnerId() {
-        List<Booking> emptyList = bookingRepository.findAllByOwnerIdAndEndBeforeOrderByStartDesc(
-                99L, LocalDateTime.now().plusDays(2),
-                PageRequest.of(0,20));
+    void shouldFindNoneFutureBookingsByNoExistOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, 99L, State.FUTURE,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByOwnerIdAndStartAfter() {
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDesc(
-                owner.getId(), LocalDateTime.now().minusMinutes(2),
-                PageRequest.of(0,20));
+    void shouldFindWaitingBookingsByOwnerId() {
+        List<BookingListEntry> bookings = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.WAITING,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(bookings.size(), equalTo(1));
-        assertThat(bookings.get(0), equalTo(booking));
+        assertThat(bookings.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
-    void shouldFindNoneAllByOwnerIdAndStartAfterByNoExistOwnerId() {
-        List<Booking> emptyList = bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDesc(
-                99L, LocalDateTime.now().minusMinutes(2),
-                PageRequest.of(0,20));
+    void shouldFindNoneWaitingBookingsByNoExistOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, 99L, State.WAITING,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
-    void shouldFindAllByOwnerIdAndStatus() {
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndStatusOrderByStartDesc(
-                owner.getId(), Status.WAITING,
-                PageRequest.of(0,20));
+    void shouldFindNoneRejectedBookingsByOwnerId() {
+        List<BookingListEntry> emptyList = bookingRepository.findAllByState(Role.OWNER, owner.getId(), State.REJECTED,
+                LocalDateTime.now(), PageRequest.of(0, 20)).getContent();
+        assertThat(emptyList.size(), equalTo(0));
+    }
+
+    @Test
+    void shouldFindBookingsSliceWithoutCount() {
+        Booking earlier = createBooking(item, booker);
+        earlier.setStart(booking.getStart().minusMinutes(30));
+        em.persist(earlier);
+        Slice<BookingListEntry> first = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), PageRequestCustom.get(0, 1));
+        Slice<BookingListEntry> second = bookingRepository.findAllByState(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), PageRequestCustom.get(1, 1));
+        assertThat(ids(first.getContent()), equalTo(List.of(booking.getId())));
+        assertThat(first.hasNext(), equalTo(true));
+        assertThat(ids(second.getContent()), equalTo(List.of(earlier.getId())));
+        assertThat(second.hasNext(), equalTo(false));
+    }
+
+    @Test
+    void shouldFindAllByBookerIdAndItemIdAndEndBefore() {
+        List<Booking> bookings = bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(
+                booker.getId(), item.getId(), LocalDateTime.now().plusDays(2));
         assertThat(bookings.size(), equalTo(1));
         assertThat(bookings.get(0), equalTo(booking));
     }
 
     @Test
-    void shouldFindNoneAllByOwnerIdAndStatusByNoExistOwnerId() {
-        List<Booking> emptyList = bookingRepository.findAllByOwnerIdAndStatusOrderByStartDesc(
-                owner.getId(), Status.APPROVED,
-                PageRequest.of(0,20));
+    void shouldFindNoneAllByBookerIdAndItemIdAndEndBeforeByNoExistBookerId() {
+        List<Booking> emptyList = bookingRepository.findAllByBookerIdAndItemIdAndEndBefore(
+                99L, 11L, LocalDateTime.now().plusDays(2));
         assertThat(emptyList.size(), equalTo(0));
     }
+
+    @Test
+    void shouldFindOverlappingApprovedBooking() {
+        booking.setStatus(Status.APPROVED);
+        booking.setStart(booking.getStart().truncatedTo(ChronoUnit.MICROS));
+        booking.setEnd(booking.getEnd().truncatedTo(ChronoUnit.MICROS));
+        em.flush();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        assertThat(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED,
+                start.minusHours(1), start.plusHours(1)), equalTo(true));
+        assertThat(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED,
+                start.plusHours(1), end.minusHours(1)), equalTo(true));
+        assertThat(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED,
+                end, end.plusHours(1)), equalTo(false));
+        assertThat(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED,
+                start.minusHours(1), start), equalTo(false));
+        assertThat(bookingRepository.existsOverlapping(item.getId(), Status.WAITING,
+                start, end), equalTo(false));
+    }
+
+    @Test
+    void shouldFindBookingsByIdsOnlyForOwnerItems() {
+        User otherOwner = em.persist(User.builder()
+                .name("other")
+                .email("other@mail.com")
+                .build());
+        Item otherItem = em.persist(createItem(otherOwner));
+        Booking otherBooking = em.persist(createBooking(otherItem, booker));
+        List<Long> ids = List.of(booking.getId(), otherBooking.getId(), 99L);
+        List<Booking> bookings = bookingRepository.findAllByIdInAndOwnerId(ids, owner.getId());
+        assertThat(bookings, equalTo(List.of(booking)));
+        assertThat(bookingRepository.findAllByIdInAndOwnerId(ids, otherOwner.getId()),
+                equalTo(List.of(otherBooking)));
+    }
+
+    @Test
+    void shouldExpireOnlyStartedWaitingBookings() {
+        Booking approved = createBooking(item, booker);
+        approved.setStatus(Status.APPROVED);
+        em.persist(approved);
+        em.flush();
+        assertThat(bookingRepository.findDeadlinesByStatusAndIdAfter(Status.WAITING, 0, PageRequest.of(0, 10)).size(),
+                equalTo(1));
+        assertThat(bookingRepository.findDeadlinesByStatusAndIdAfter(Status.WAITING, booking.getId(),
+                PageRequest.of(0, 10)).size(), equalTo(0));
+        List<Long> ids = List.of(booking.getId(), approved.getId());
+        assertThat(bookingRepository.updateStatusIfStarted(ids, Status.WAITING, Status.EXPIRED,
+                LocalDateTime.now()), equalTo(0));
+        assertThat(bookingRepository.updateStatusIfStarted(ids, Status.WAITING, Status.EXPIRED,
+                LocalDateTime.now().plusHours(2)), equalTo(1));
+        em.clear();
+        Booking expired = em.find(Booking.class, booking.getId());
+        assertThat(expired.getStatus(), equalTo(Status.EXPIRED));
+        assertThat(expired.getVersion(), equalTo(1));
+        assertThat(em.find(Booking.class, approved.getId()).getStatus(), equalTo(Status.APPROVED));
+    }
+
+    @Test
+    void shouldCountBookingsByStateInOneQuery() {
+        Booking rejected = createBooking(item, booker);
+        rejected.setStatus(Status.REJECTED);
+        em.persist(rejected);
+        LocalDateTime now = LocalDateTime.now().plusHours(2);
+        Map<State, Long> expected = new EnumMap<>(State.class);
+        expected.put(State.ALL, 2L);
+        expected.put(State.PAST, 0L);
+        expected.put(State.CURRENT, 2L);
+        expected.put(State.FUTURE, 0L);
+        expected.put(State.WAITING, 1L);
+        expected.put(State.REJECTED, 1L);
+        expected.put(State.EXPIRED, 0L);
+        assertThat(bookingRepository.countByState(Role.BOOKER, booker.getId(), now), equalTo(expected));
+        assertThat(bookingRepository.countByState(Role.OWNER, owner.getId(), now), equalTo(expected));
+        assertThat(bookingRepository.countByState(Role.OWNER, booker.getId(), now).get(State.ALL), equalTo(0L));
+        for (State state : State.values()) {
+            assertThat(bookingRepository.findAllByState(Role.OWNER, owner.getId(), state, now,
+                    PageRequest.of(0, 20)).getNumberOfElements(), equalTo(expected.get(state).intValue()));
+        }
+    }
+
+    @Test
+    void shouldRejectStaleStatusUpdate() {
+        em.flush();
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET version = version + 1 WHERE id = ?")
+                .setParameter(1, booking.getId())
+                .executeUpdate();
+        booking.setStatus(Status.APPROVED);
+        assertThrows(OptimisticLockException.class, () -> em.flush());
+    }
+
+    @Test
+    void shouldFindLastAndNextApprovedBookingsByItemIds() {
+        LocalDateTime now = LocalDateTime.now().plusDays(10);
+        Booking past = createBooking(item, booker);
+        past.setStatus(Status.APPROVED);
+        past.setStart(now.minusDays(3));
+        past.setEnd(now.minusDays(2));
+        Booking last = createBooking(item, booker);
+        last.setStatus(Status.APPROVED);
+        last.setStart(now.minusDays(1));
+        last.setEnd(now.minusHours(1));
+        Booking next = createBooking(item, booker);
+        next.setStatus(Status.APPROVED);
+        next.setStart(now.plusDays(1));
+        next.setEnd(now.plusDays(2));
+        Booking later = createBooking(item, booker);
+        later.setStatus(Status.APPROVED);
+        later.setStart(now.plusDays(3));
+        later.setEnd(now.plusDays(4));
+        em.persist(past);
+        em.persist(last);
+        em.persist(next);
+        em.persist(later);
+        List<Booking> lastBookings = bookingRepository.findLastByItemIds(
+                List.of(item.getId(), 99L), Status.APPROVED, now);
+        List<Booking> nextBookings = bookingRepository.findNextByItemIds(
+                List.of(item.getId(), 99L), Status.APPROVED, now);
+        assertThat(lastBookings, equalTo(List.of(last)));
+        assertThat(nextBookings, equalTo(List.of(next)));
+    }
+
+    @Test
+    void shouldFindNextBookingsAfterLastBookingsEndInOneQuery() {
+        LocalDateTime now = LocalDateTime.now().plusDays(10);
+        Item other = em.persist(createItem(owner));
+        List<Long> lastIds = new ArrayList<>();
+        List<Long> afterIds = new ArrayList<>();
+        for (Item bookedItem : List.of(item, other)) {
+            Booking last = createBooking(bookedItem, booker);
+            last.setStatus(Status.APPROVED);
+            last.setStart(now.minusDays(1));
+            last.setEnd(now.plusDays(2));
+            Booking overlapped = createBooking(bookedItem, booker);
+            overlapped.setStatus(Status.APPROVED);
+            overlapped.setStart(now.plusDays(1));
+            overlapped.setEnd(now.plusDays(3));
+            Booking after = createBooking(bookedItem, booker);
+            after.setStatus(Status.APPROVED);
+            after.setStart(now.plusDays(4));
+            after.setEnd(now.plusDays(5));
+            Booking later = createBooking(bookedItem, booker);
+            later.setStatus(Status.APPROVED);
+            later.setStart(now.plusDays(6));
+            later.setEnd(now.plusDays(7));
+            em.persist(last);
+            em.persist(overlapped);
+            em.persist(after);
+            em.persist(later);
+            lastIds.add(last.getId());
+            afterIds.add(after.getId());
+        }
+        List<Booking> nextBookings = bookingRepository.findNextAfterBookings(lastIds, Status.APPROVED);
+        assertThat(nextBookings.stream().map(Booking::getId).sorted().collect(Collectors.toList()),
+                equalTo(afterIds));
+    }
+
+    @Test
+    void shouldFindBookingsPageByPageAfterCursor() {
+        booking.setStart(booking.getStart().truncatedTo(ChronoUnit.MICROS));
+        em.flush();
+        Booking sameStart = createBooking(item, booker);
+        sameStart.setStart(booking.getStart());
+        Booking earlier = createBooking(item, booker);
+        earlier.setStart(booking.getStart().minusMinutes(30));
+        em.persist(sameStart);
+        em.persist(earlier);
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingListEntry> first = bookingRepository.findAllByStateAfter(Role.OWNER, owner.getId(), State.ALL,
+                now, null, 2);
+        BookingListEntry lastOnPage = first.get(1);
+        List<BookingListEntry> second = bookingRepository.findAllByStateAfter(Role.OWNER, owner.getId(), State.ALL,
+                now, PageCursor.of(lastOnPage.getStart(), lastOnPage.getId()), 2);
+        List<BookingListEntry> byBooker = bookingRepository.findAllByStateAfter(Role.BOOKER, booker.getId(), State.FUTURE,
+                now, PageCursor.of(sameStart.getStart(), sameStart.getId()), 20);
+        assertThat(ids(first), equalTo(List.of(sameStart.getId(), booking.getId())));
+        assertThat(ids(second), equalTo(List.of(earlier.getId())));
+        assertThat(ids(byBooker), equalTo(List.of(booking.getId(), earlier.getId())));
+    }
+
+    @Test
+    void shouldFindOwnerBookingsOnLargeDataset() {
+        List<User> owners = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            User newOwner = User.builder()
+                    .name("owner" + i)
+                    .email("owner" + i + "@mail.com")
+                    .build();
+            em.persist(newOwner);
+            owners.add(newOwner);
+        }
+        for (int i = 0; i < 200; i++) {
+            Item newItem = createItem(owners.get(i % owners.size()));
+            em.persist(newItem);
+            items.add(newItem);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 2000; i++) {
+            Booking newBooking = createBooking(items.get(i % items.size()), booker);
+            newBooking.setStart(now.plusMinutes(i + 1));
+            newBooking.setEnd(now.plusDays(1).plusMinutes(i));
+            newBooking.setStatus(i % 3 == 0 ? Status.APPROVED : Status.WAITING);
+            em.persist(newBooking);
+        }
+        em.flush();
+        long ownerId = owners.get(3).getId();
+        List<BookingListEntry> all = bookingRepository.findAllByState(Role.OWNER, ownerId, State.ALL,
+                now, PageRequest.of(0, 2000)).getContent();
+        List<BookingListEntry> waiting = bookingRepository.findAllByState(Role.OWNER, ownerId, State.WAITING,
+                now, PageRequest.of(0, 2000)).getContent();
+        List<BookingListEntry> future = bookingRepository.findAllByState(Role.OWNER, ownerId, State.FUTURE,
+                now.plusMinutes(1000), PageRequest.of(0, 2000)).getContent();
+        assertThat(all.size(), equalTo(200));
+        Set<Long> ownerItemIds = items.stream()
+                .filter(ownerItem -> ownerItem.getOwner().getId() == ownerId)
+                .map(Item::getId)
+                .collect(Collectors.toSet());
+        assertThat(all.stream().allMatch(b -> ownerItemIds.contains(b.getItemId())), equalTo(true));
+        assertThat(all.get(0).getStart().isAfter(all.get(199).getStart()), equalTo(true));
+        assertThat(waiting.size(), equalTo(133));
+        assertThat(future.size(), equalTo(100));
+    }
 }
@@ -2,13 +2,16 @@ package ru.practicum.shareit.booking;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.json.JsonContent;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import java.io.IOException;
@@ -57,14 +60,7 @@ public class BookingResponseDTOTest {
                 .status(Status.WAITING)
                 .build();
 
-        bookingResponseDto = BookingResponseDto.builder()
-                .id(booking.getId())
-                .start(booking.getStart())
-                .end(booking.getEnd())
-                .item(booking.getItem())
-                .booker(booking.getBooker())
-                .status(booking.getStatus())
-                .build();
+        bookingResponseDto = Mappers.getMapper(BookingMapper.class).toResponseDto(booking);
     }
 
     @Test
@@ -97,62 +93,6 @@ public class BookingResponseDTOTest {
         assertThat(result).extractingJsonPathStringValue("$.item.name").isEqualTo("item");
     }
 
-    @Test
-    void shouldConvertItemDescriptionToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.description")
-                .isEqualTo("description");
-    }
-
-    @Test
-    void shouldConvertItemAvailableToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathBooleanValue("$.item.available").isEqualTo(true);
-    }
-
-    @Test
-    void shouldConvertItemOwnerIdToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathNumberValue("$.item.owner.id").isEqualTo(2);
-    }
-
-    @Test
-    void shouldConvertItemOwnerNameToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.owner.name").isEqualTo("owner");
-    }
-
-    @Test
-    void shouldConvertItemOwnerEMailToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.owner.email")
-                .isEqualTo("owner@mail.com");
-    }
-
-    @Test
-    void shouldConvertItemRequestToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.request").isEqualTo(null);
-    }
-
-    @Test
-    void shouldConvertItemLastBookingToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.lastBooking").isEqualTo(null);
-    }
-
-    @Test
-    void shouldConvertItemNextBookingToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.nextBooking").isEqualTo(null);
-    }
-
-    @Test
-    void shouldConvertItemCommentsToJSON() throws IOException {
-        JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.item.comments").isEqualTo(null);
-    }
-
     @Test
     void shouldConvertBookerIdToJSON() throws IOException {
         JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
@@ -160,16 +100,22 @@ public class BookingResponseDTOTest {
     }
 
     @Test
-    void shouldConvertBookerNameToJSON() throws IOException {
+    void shouldOmitItemDetailsFromJSON() throws IOException {
         JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.booker.name").isEqualTo("booker");
+        assertThat(result).doesNotHaveJsonPath("$.item.description");
+        assertThat(result).doesNotHaveJsonPath("$.item.available");
+        assertThat(result).doesNotHaveJsonPath("$.item.owner");
+        assertThat(result).doesNotHaveJsonPath("$.item.request");
+        assertThat(result).doesNotHaveJsonPath("$.item.lastBooking");
+        assertThat(result).doesNotHaveJsonPath("$.item.nextBooking");
+        assertThat(result).doesNotHaveJsonPath("$.item.comments");
     }
 
     @Test
-    void shouldConvertBookerEmailToJSON() throws IOException {
+    void shouldOmitBookerDetailsFromJSON() throws IOException {
         JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
-        assertThat(result).extractingJsonPathStringValue("$.booker.email")
-                .isEqualTo("booker@mail.com");
+        assertThat(result).doesNotHaveJsonPath("$.booker.name");
+        assertThat(result).doesNotHaveJsonPath("$.booker.email");
     }
 
     @Test
@@ -177,4 +123,18 @@ public class BookingResponseDTOTest {
         JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
         assertThat(result).extractingJsonPathStringValue("$.status").isEqualTo("WAITING");
     }
+
+    @Test
+    void shouldConvertBookingListEntryToJSON() throws IOException {
+        BookingListEntry entry = new BookingListEntry(2, start, end, 3, "drill", 4, Status.APPROVED);
+        JsonContent<BookingResponseDto> result = json.write(Mappers.getMapper(BookingMapper.class)
+                .toResponseDto(entry));
+        assertThat(result).extractingJsonPathNumberValue("$.id").isEqualTo(2);
+        assertThat(result).extractingJsonPathStringValue("$.start").isEqualTo(start.toString());
+        assertThat(result).extractingJsonPathNumberValue("$.item.id").isEqualTo(3);
+        assertThat(result).extractingJsonPathStringValue("$.item.name").isEqualTo("drill");
+        assertThat(result).extractingJsonPathNumberValue("$.booker.id").isEqualTo(4);
+        assertThat(result).doesNotHaveJsonPath("$.booker.name");
+        assertThat(result).extractingJsonPathStringValue("$.status").isEqualTo("APPROVED");
+    }
 }
@@ -6,8 +6,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingListEntry;
+import ru.practicum.shareit.booking.model.BookingStatusUpdate;
+import ru.practicum.shareit.booking.model.BookingStatusUpdateResult;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -17,15 +24,23 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import ru.practicum.shareit.utils.PageRequestCustom;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -70,6 +85,12 @@ public class BookingServiceTest {
                 .build();
     }
 
+    static BookingListEntry createBookingListEntry(Booking booking) {
+        return new BookingListEntry(booking.getId(), booking.getStart(), booking.getEnd(),
+                booking.getItem().getId(), booking.getItem().getName(), booking.getBooker().getId(),
+                booking.getStatus());
+    }
+
     @BeforeEach
     void beforeEach() {
         booking = createBooking();
@@ -156,6 +177,124 @@ public class BookingServiceTest {
         assertThat(exception.getMessage(), equalTo("Пользователь не может бронировать у самого себя"));
     }
 
+    @Test
+    void shouldNotCreateBookingOverlappingApprovedBooking() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED, booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+        assertThrows(ValidationException.class,
+                () -> bookingService.createBooking(booking, booker.getId(), item.getId()));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldNotApproveBookingOverlappingApprovedBooking() {
+        item.getOwner().setId(booker.getId());
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        when(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED, booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+        assertThrows(ValidationException.class,
+                () -> bookingService.updateStatus(booker.getId(), booking.getId(), true));
+        assertThat(booking.getStatus(), equalTo(Status.WAITING));
+    }
+
+    @Test
+    void shouldRetryStatusUpdateOnVersionConflict() {
+        item.getOwner().setId(booker.getId());
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(bookingRepository.findById(anyLong()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, booking.getId()))
+                .thenReturn(Optional.of(booking));
+        bookingService.updateStatus(booker.getId(), booking.getId(), false);
+        assertThat(booking.getStatus(), equalTo(Status.REJECTED));
+        verify(bookingRepository, times(2)).findById(booking.getId());
+    }
+
+    @Test
+    void shouldUpdateStatusesInBatch() {
+        Booking overlapping = createBooking();
+        overlapping.setId(2);
+        overlapping.setItem(item);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item.getOwner()));
+        when(bookingRepository.findAllByIdInAndOwnerId(any(), eq(item.getOwner().getId())))
+                .thenReturn(List.of(booking, overlapping));
+        when(bookingRepository.findAllByItemIdInAndStatusAndEndAfter(any(), eq(Status.APPROVED), any()))
+                .thenReturn(List.of());
+        List<BookingStatusUpdateResult> results = bookingService.updateStatuses(item.getOwner().getId(), List.of(
+                new BookingStatusUpdate(1, true),
+                new BookingStatusUpdate(2, true),
+                new BookingStatusUpdate(3, false)));
+        assertThat(results.size(), equalTo(3));
+        assertThat(results.get(0), equalTo(new BookingStatusUpdateResult(1, Status.APPROVED, null)));
+        assertThat(results.get(1).getStatus(), equalTo(Status.WAITING));
+        assertThat(results.get(1).getError(), startsWith("Вещь с id=1 уже забронирована"));
+        assertThat(results.get(2).getStatus(), nullValue());
+        assertThat(results.get(2).getError(), equalTo("Бронирование с id=3 не найдено среди бронирований"
+                + " вещей пользователя с id=2"));
+        assertThat(booking.getStatus(), equalTo(Status.APPROVED));
+        assertThat(overlapping.getStatus(), equalTo(Status.WAITING));
+        verify(bookingRepository, times(1)).findAllByIdInAndOwnerId(any(), anyLong());
+        verify(bookingRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldApproveInBatchAfterRejectingOverlappedBooking() {
+        Booking approved = createBooking();
+        approved.setId(2);
+        approved.setItem(item);
+        approved.setStatus(Status.APPROVED);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item.getOwner()));
+        when(bookingRepository.findAllByIdInAndOwnerId(any(), anyLong()))
+                .thenReturn(List.of(booking, approved));
+        when(bookingRepository.findAllByItemIdInAndStatusAndEndAfter(any(), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(approved));
+        List<BookingStatusUpdateResult> results = bookingService.updateStatuses(item.getOwner().getId(), List.of(
+                new BookingStatusUpdate(2, false),
+                new BookingStatusUpdate(1, true)));
+        assertThat(results.get(0), equalTo(new BookingStatusUpdateResult(2, Status.REJECTED, null)));
+        assertThat(results.get(1), equalTo(new BookingStatusUpdateResult(1, Status.APPROVED, null)));
+    }
+
+    @Test
+    void shouldNotUpdateStatusesWithDuplicateBookingIds() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item.getOwner()));
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> bookingService.updateStatuses(item.getOwner().getId(), List.of(
+                        new BookingStatusUpdate(1, true),
+                        new BookingStatusUpdate(1, false))));
+        assertThat(exception.getMessage(), equalTo("Бронирование с id=1 указано в списке несколько раз"));
+        verify(bookingRepository, never()).findAllByIdInAndOwnerId(any(), anyLong());
+    }
+
+    @Test
+    void shouldGetStatsByOwnerItems() {
+        Map<State, Long> stats = Map.of(State.ALL, 3L, State.WAITING, 1L);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item.getOwner()));
+        when(bookingRepository.countByState(eq(Role.OWNER), eq(item.getOwner().getId()), any()))
+                .thenReturn(stats);
+        assertThat(bookingService.getStatsByOwnerItems(item.getOwner().getId()), equalTo(stats));
+        verify(bookingRepository, never()).countByState(eq(Role.BOOKER), anyLong(), any());
+    }
+
+    @Test
+    void shouldNotGetStatsWithoutUser() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> bookingService.getStatsByUser(99L));
+        verify(bookingRepository, never()).countByState(any(), anyLong(), any());
+    }
+
     @Test
     void shouldApproveBooking() {
         item.getOwner().setId(booker.getId());
@@ -167,6 +306,20 @@ public class BookingServiceTest {
         assertThat(booking.getStatus(), equalTo(Status.APPROVED));
     }
 
+    @Test
+    void shouldNotApproveExpiredBooking() {
+        item.getOwner().setId(booker.getId());
+        booking.setStatus(Status.EXPIRED);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> bookingService.updateStatus(booker.getId(), booking.getId(), true));
+        assertThat(exception.getMessage(), equalTo("Бронирование с id=1 истекло без подтверждения"));
+        assertThat(booking.getStatus(), equalTo(Status.EXPIRED));
+    }
+
     @Test
     void shouldRejectBooking() {
         item.getOwner().setId(booker.getId());
@@ -279,34 +432,24 @@ public class BookingServiceTest {
     @Test
     void shouldGetAllBookingsByStatuses() {
         Pageable page = PageRequestCustom.get(0, 3);
-        List<Booking> bookings = List.of(booking);
+        List<BookingListEntry> bookings = List.of(createBookingListEntry(booking));
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(booker.getId(), page))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByEndDesc(anyLong(), any(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(booker.getId(), Status.WAITING, page))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(booker.getId(), Status.REJECTED, page))
-                .thenReturn(bookings);
-        List<Booking> all = bookingService.getAllByUser(booker.getId(), "ALL", 0, 3);
-        List<Booking> past = bookingService.getAllByUser(booker.getId(), "PAST", 0, 3);
-        List<Booking> current = bookingService.getAllByUser(booker.getId(), "CURRENT", 0, 3);
-        List<Booking> future = bookingService.getAllByUser(booker.getId(), "FUTURE", 0, 3);
-        List<Booking> waiting = bookingService.getAllByUser(booker.getId(), "WAITING", 0, 3);
-        List<Booking> rejected = bookingService.getAllByUser(booker.getId(), "REJECTED", 0, 3);
-
-        assertThat(all.get(0), equalTo(booking));
-        assertThat(past.get(0), equalTo(booking));
-        assertThat(current.get(0), equalTo(booking));
-        assertThat(future.get(0), equalTo(booking));
-        assertThat(waiting.get(0), equalTo(booking));
-        assertThat(rejected.get(0), equalTo(booking));
+        when(bookingRepository.findAllByState(eq(Role.BOOKER), eq(booker.getId()), any(), any(), eq(page)))
+                .thenReturn(new SliceImpl<>(bookings, page, false));
+        List<BookingListEntry> all = bookingService.getAllByUser(booker.getId(), "ALL", 0, 3);
+        List<BookingListEntry> past = bookingService.getAllByUser(booker.getId(), "PAST", 0, 3);
+        List<BookingListEntry> current = bookingService.getAllByUser(booker.getId(), "CURRENT", 0, 3);
+        List<BookingListEntry> future = bookingService.getAllByUser(booker.getId(), "FUTURE", 0, 3);
+        List<BookingListEntry> waiting = bookingService.getAllByUser(booker.getId(), "WAITING", 0, 3);
+        List<BookingListEntry> rejected = bookingService.getAllByUser(booker.getId(), "REJECTED", 0, 3);
+
+        assertThat(all.get(0), equalTo(bookings.get(0)));
+        assertThat(past.get(0), equalTo(bookings.get(0)));
+        assertThat(current.get(0), equalTo(bookings.get(0)));
+        assertThat(future.get(0), equalTo(bookings.get(0)));
+        assertThat(waiting.get(0), equalTo(bookings.get(0)));
+        assertThat(rejected.get(0), equalTo(bookings.get(0)));
     }
 
     @Test
@@ -321,34 +464,24 @@ public class BookingServiceTest {
     @Test
     void shouldGetAllBookingsByOwnerIdByStatutes() {
         Pageable page = PageRequestCustom.get(0, 3);
-        List<Booking> bookings = List.of(booking);
+        List<BookingListEntry> bookings = List.of(createBookingListEntry(booking));
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByOwnerIdOrderByStartDesc(booker.getId(), page))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByOwnerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(anyLong(), any(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByOwnerIdAndStatusOrderByStartDesc(booker.getId(), Status.WAITING, page))
-                .thenReturn(bookings);
-        when(bookingRepository.findAllByOwnerIdAndStatusOrderByStartDesc(booker.getId(), Status.REJECTED, page))
-                .thenReturn(bookings);
-        List<Booking> all = bookingService.getAllByOwnerItems(booker.getId(), "ALL", 0, 3);
-        List<Booking> past = bookingService.getAllByOwnerItems(booker.getId(), "PAST", 0, 3);
-        List<Booking> current = bookingService.getAllByOwnerItems(booker.getId(), "CURRENT", 0, 3);
-        List<Booking> future = bookingService.getAllByOwnerItems(booker.getId(), "FUTURE", 0, 3);
-        List<Booking> waiting = bookingService.getAllByOwnerItems(booker.getId(), "WAITING", 0, 3);
-        List<Booking> rejected = bookingService.getAllByOwnerItems(booker.getId(), "REJECTED", 0, 3);
-
-        assertThat(all.get(0), equalTo(booking));
-        assertThat(past.get(0), equalTo(booking));
-        assertThat(current.get(0), equalTo(booking));
-        assertThat(future.get(0), equalTo(booking));
-        assertThat(waiting.get(0), equalTo(booking));
-        assertThat(rejected.get(0), equalTo(booking));
+        when(bookingRepository.findAllByState(eq(Role.OWNER), eq(booker.getId()), any(), any(), eq(page)))
+                .thenReturn(new SliceImpl<>(bookings, page, false));
+        List<BookingListEntry> all = bookingService.getAllByOwnerItems(booker.getId(), "ALL", 0, 3);
+        List<BookingListEntry> past = bookingService.getAllByOwnerItems(booker.getId(), "PAST", 0, 3);
+        List<BookingListEntry> current = bookingService.getAllByOwnerItems(booker.getId(), "CURRENT", 0, 3);
+        List<BookingListEntry> future = bookingService.getAllByOwnerItems(booker.getId(), "FUTURE", 0, 3);
+        List<BookingListEntry> waiting = bookingService.getAllByOwnerItems(booker.getId(), "WAITING", 0, 3);
+        List<BookingListEntry> rejected = bookingService.getAllByOwnerItems(booker.getId(), "REJECTED", 0, 3);
+
+        assertThat(all.get(0), equalTo(bookings.get(0)));
+        assertThat(past.get(0), equalTo(bookings.get(0)));
+        assertThat(current.get(0), equalTo(bookings.get(0)));
+        assertThat(future.get(0), equalTo(bookings.get(0)));
+        assertThat(waiting.get(0), equalTo(bookings.get(0)));
+        assertThat(rejected.get(0), equalTo(bookings.get(0)));
     }
 
     @Test
@@ -359,4 +492,24 @@ public class BookingServiceTest {
                 bookingService.getAllByOwnerItems(booker.getId(), "Unknown", 0, 3));
         assertThat(exception.getMessage(), equalTo("Unknown state: UNSUPPORTED_STATUS"));
     }
+
+    @Test
+    void shouldGetAllBookingsByOwnerAfterCursor() {
+        PageCursor after = PageCursor.of(booking.getStart().plusDays(1), 10L);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        when(bookingRepository.findAllByStateAfter(eq(Role.OWNER), eq(booker.getId()), eq(State.WAITING), any(),
+                eq(after), eq(3)))
+                .thenReturn(List.of(createBookingListEntry(booking)));
+        List<BookingListEntry> waiting = bookingService.getAllByOwnerItems(booker.getId(), "WAITING", after, 3);
+        assertThat(waiting, equalTo(List.of(createBookingListEntry(booking))));
+    }
+
+    @Test
+    void shouldThrowOnGetAllBookingsWithCursorWithoutStart() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booker));
+        assertThrows(ValidationException.class, () ->
+                bookingService.getAllByUser(booker.getId(), "ALL", PageCursor.of(1L), 3));
+    }
 }
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -80,6 +81,16 @@ public class CommentRepositoryTest {
         assertThat(emptyList.size(), equalTo(0));
     }
 
+    @Test
+    void shouldFindLatestByItemId() {
+        Comment later = createComment(comment.getAuthor(), item);
+        later.setCreated(comment.getCreated().plusMinutes(1));
+        em.persist(later);
+        List<Comment> comments = commentRepository.findAllByItemIdOrderByCreatedDesc(item.getId(),
+                PageRequest.of(0, 1));
+        assertThat(comments, equalTo(List.of(later)));
+    }
+
     @Test
     void shouldFindAllByItemIds() {
         List<Comment> comments = commentRepository.findAllByItemIds(List.of(item.getId()));
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.FreeWindow;
+import ru.practicum.shareit.item.service.ItemAvailabilityCalendar;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ItemAvailabilityCalendarTest {
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private BookingRepository bookingRepository;
+    private ItemAvailabilityCalendar calendar;
+
+    private Booking approved(int startDay, int endDay) {
+        return Booking.builder()
+                .start(now.plusDays(startDay))
+                .end(now.plusDays(endDay))
+                .status(Status.APPROVED)
+                .build();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findAllByItemIdAndStatusAndEndAfter(eq(1L), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(approved(2, 4), approved(6, 7)));
+        calendar = new ItemAvailabilityCalendar(bookingRepository);
+        ReflectionTestUtils.setField(calendar, "maxItems", 2);
+    }
+
+    @Test
+    void shouldFindFreeWindowsBetweenApprovedBookings() {
+        List<FreeWindow> windows = calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        assertThat(windows, equalTo(List.of(
+                new FreeWindow(now, now.plusDays(2)),
+                new FreeWindow(now.plusDays(4), now.plusDays(6)),
+                new FreeWindow(now.plusDays(7), now.plusDays(10)))));
+    }
+
+    @Test
+    void shouldClipFreeWindowsToRequestedPeriod() {
+        List<FreeWindow> windows = calendar.findFreeWindows(1L, now.plusDays(3), now.plusDays(6), now);
+        assertThat(windows, equalTo(List.of(new FreeWindow(now.plusDays(4), now.plusDays(6)))));
+        assertThat(calendar.findFreeWindows(1L, now.plusDays(2), now.plusDays(4), now), equalTo(List.of()));
+    }
+
+    @Test
+    void shouldLoadCalendarOnceAndKeepItInSync() {
+        calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        calendar.add(1L, now.plusDays(8), now.plusDays(9));
+        calendar.remove(1L, now.plusDays(2));
+        List<FreeWindow> windows = calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        assertThat(windows, equalTo(List.of(
+                new FreeWindow(now, now.plusDays(6)),
+                new FreeWindow(now.plusDays(7), now.plusDays(8)),
+                new FreeWindow(now.plusDays(9), now.plusDays(10)))));
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatusAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldReloadEvictedCalendar() {
+        calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        calendar.evict(1L);
+        calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        calendar.findFreeWindows(2L, now, now.plusDays(10), now);
+        calendar.findFreeWindows(3L, now, now.plusDays(10), now);
+        calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        verify(bookingRepository, times(3)).findAllByItemIdAndStatusAndEndAfter(eq(1L), any(), any());
+    }
+
+    @Test
+    void shouldDropFinishedBookingsFromCalendar() {
+        calendar.findFreeWindows(1L, now, now.plusDays(10), now);
+        LocalDateTime later = now.plusDays(5);
+        List<FreeWindow> windows = calendar.findFreeWindows(1L, later, now.plusDays(10), later);
+        assertThat(windows, equalTo(List.of(
+                new FreeWindow(later, now.plusDays(6)),
+                new FreeWindow(now.plusDays(7), now.plusDays(10)))));
+    }
+}
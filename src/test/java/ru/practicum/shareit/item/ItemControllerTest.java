@@ -12,11 +12,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.FreeWindow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageCursor;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +28,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,6 +46,7 @@ public class ItemControllerTest {
     private Item item;
     private ItemDto itemDto;
     private List<Item> items;
+    private List<ItemListEntry> itemEntries;
     private User author;
     private Comment comment;
     private CommentDto commentDto;
@@ -99,6 +104,8 @@ public class ItemControllerTest {
         item = createItem(owner);
         itemDto = createItemDto();
         items = List.of(createItem(owner));
+        itemEntries = List.of(new ItemListEntry(item.getId(), item.getName(), item.getDescription(),
+                item.getAvailable(), null));
         author = createOwner();
         comment = createComment(author, createItem(author));
         commentDto = createCommentDto();
@@ -122,6 +129,34 @@ public class ItemControllerTest {
                 );
     }
 
+    @Test
+    void shouldCreateItemOnceForRepeatedIdempotencyKey() throws Exception {
+        when(itemService.create(any(), anyLong(), anyLong()))
+                .thenReturn(item);
+        String json = mapper.writeValueAsString(itemDto);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/items")
+                            .header("X-Sharer-User-Id", owner.getId())
+                            .header("Idempotency-Key", "item-retry")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpectAll(
+                            status().isCreated(),
+                            jsonPath("$.id").value(1),
+                            jsonPath("$.name").value("item")
+                    );
+        }
+        verify(itemService, times(1)).create(any(), anyLong(), anyLong());
+        itemDto.setName("other");
+        mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header("Idempotency-Key", "item-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(itemDto)))
+                .andExpect(status().isConflict());
+        verify(itemService, times(1)).create(any(), anyLong(), anyLong());
+    }
+
     @Test
     void shouldNotCreateItemWithoutUserId() throws Exception {
         when(itemService.create(any(), anyLong(), anyLong()))
@@ -134,6 +169,24 @@ public class ItemControllerTest {
         verify(itemService, never()).create(any(), anyLong(), anyLong());
     }
 
+    @Test
+    void shouldGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 2, 10, 0);
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(List.of(new FreeWindow(from, to.minusHours(12))));
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-02T10:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().is2xxSuccessful(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].start").value("2030-01-01T10:00:00"),
+                        jsonPath("$[0].end").value("2030-01-01T22:00:00")
+                );
+    }
+
     @Test
     void shouldGetItemById() throws Exception {
         when(itemService.getById(anyLong(), anyLong()))
@@ -206,6 +259,22 @@ public class ItemControllerTest {
                         jsonPath("$[0].id", Matchers.is(items.get(0).getId()), Long.class));
     }
 
+    @Test
+    void shouldGetOwnersItemsAfterCursorWithNextCursorHeader() throws Exception {
+        when(itemService.getItemsByOwnerId(owner.getId(), PageCursor.of(0L), 1))
+                .thenReturn(items);
+        mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("size", "1")
+                        .param("after", PageCursor.of(0L).encode())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$", hasSize(1)),
+                        header().string(PageCursor.NEXT_CURSOR_HEADER,
+                                PageCursor.of(items.get(0).getId()).encode()));
+        verify(itemService, never()).getItemsByOwnerId(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void shouldNotGetOwnersItemsWithoutUserId() throws Exception {
         when(itemService.getItemsByOwnerId(anyLong(), anyInt(), anyInt()))
@@ -219,19 +288,67 @@ public class ItemControllerTest {
     @Test
     void shouldFindItemByNameOrDescription() throws Exception {
         when(itemService.getItemsByNameOrDescription(anyString(), anyInt(), anyInt()))
-                .thenReturn(items);
+                .thenReturn(itemEntries);
         mockMvc.perform(get("/items/search")
                         .accept(MediaType.APPLICATION_JSON)
                         .param("text", "description"))
                 .andExpectAll(status().is2xxSuccessful(),
                         jsonPath("$", hasSize(1)),
-                        jsonPath("$[0].id", Matchers.is(items.get(0).getId()), Long.class));
+                        jsonPath("$[0].id", Matchers.is(itemEntries.get(0).getId()), Long.class));
+    }
+
+    @Test
+    void shouldFindItemByRelevance() throws Exception {
+        when(itemService.getItemsByRelevance(anyString(), anyInt(), anyInt()))
+                .thenReturn(itemEntries);
+        mockMvc.perform(get("/items/search")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("text", "description")
+                        .param("mode", "ranked"))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].id", Matchers.is(itemEntries.get(0).getId()), Long.class));
+        verify(itemService, never()).getItemsByNameOrDescription(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldNotFindItemWithUnknownSearchMode() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("text", "description")
+                        .param("mode", "fuzzy"))
+                .andExpect(status().isBadRequest());
+        verify(itemService, never()).getItemsByNameOrDescription(anyString(), anyInt(), anyInt());
+        verify(itemService, never()).getItemsByRelevance(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldGetNameSuggestions() throws Exception {
+        when(itemService.getNameSuggestions("дре", 5))
+                .thenReturn(List.of("дрель"));
+        mockMvc.perform(get("/items/suggest")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("prefix", "дре")
+                        .param("size", "5"))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0]").value("дрель"));
+    }
+
+    @Test
+    void shouldNotGetNameSuggestionsWithNegativeSize() throws Exception {
+        mockMvc.perform(get("/items/suggest")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("prefix", "дре")
+                        .param("size", "-1"))
+                .andExpect(status().isBadRequest());
+        verify(itemService, never()).getNameSuggestions(anyString(), anyInt());
     }
 
     @Test
     void shouldNotFindItemByNameOrDescriptionWithoutText() throws Exception {
         when(itemService.getItemsByNameOrDescription(anyString(), anyInt(), anyInt()))
-                .thenReturn(items);
+                .thenReturn(itemEntries);
         mockMvc.perform(get("/items/search")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().is5xxServerError());
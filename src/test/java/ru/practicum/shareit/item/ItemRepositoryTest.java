@@ -7,9 +7,16 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.model.ItemSearchView;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageRequestCustom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
@@ -38,6 +45,12 @@ public class ItemRepositoryTest {
                 .build();
     }
 
+    static List<Long> ids(List<ItemListEntry> items) {
+        return items.stream()
+                .map(ItemListEntry::getId)
+                .collect(Collectors.toList());
+    }
+
     @BeforeEach
     void beforeEach() {
         owner = createOwner();
@@ -48,31 +61,134 @@ public class ItemRepositoryTest {
 
     @Test
     void shouldFindAllByOwnerId() {
-        List<Item> items = itemRepository.findAllByOwnerIdOrderById(owner.getId(), PageRequest.of(0, 20));
+        List<ItemListEntry> items = itemRepository.findAllByOwnerIdOrderById(owner.getId(), PageRequest.of(0, 20));
         assertThat(items.size(), equalTo(1));
-        assertThat(items.get(0), equalTo(item));
+        assertThat(items.get(0).getId(), equalTo(item.getId()));
+        assertThat(items.get(0).getName(), equalTo(item.getName()));
+        assertThat(items.get(0).getRequestId(), equalTo(null));
+    }
+
+    @Test
+    void shouldFindOwnerItemsFromExactOffset() {
+        List<Long> ownerItemIds = new ArrayList<>(List.of(item.getId()));
+        for (int i = 0; i < 4; i++) {
+            Item newItem = createItem(owner);
+            em.persist(newItem);
+            ownerItemIds.add(newItem.getId());
+        }
+        List<ItemListEntry> items = itemRepository.findAllByOwnerIdOrderById(owner.getId(),
+                PageRequestCustom.get(3, 2));
+        assertThat(ids(items), equalTo(ownerItemIds.subList(3, 5)));
+    }
+
+    @Test
+    void shouldFindOwnerItemsAfterCursor() {
+        Item second = createItem(owner);
+        Item third = createItem(owner);
+        em.persist(second);
+        em.persist(third);
+        List<ItemListEntry> items = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(owner.getId(),
+                item.getId(), PageRequest.of(0, 1));
+        assertThat(ids(items), equalTo(List.of(second.getId())));
+    }
+
+    @Test
+    void shouldFindItemsByRequestIds() {
+        User requester = em.persist(User.builder().name("requester").email("requester@mail.com").build());
+        ItemRequest request = em.persist(ItemRequest.builder()
+                .description("request")
+                .created(LocalDateTime.now())
+                .requester(requester)
+                .build());
+        Item requested = createItem(owner);
+        requested.setRequest(request);
+        em.persist(requested);
+        List<ItemListEntry> items = itemRepository.findAllByRequestIdIn(List.of(request.getId(), 99L));
+        assertThat(ids(items), equalTo(List.of(requested.getId())));
+        assertThat(items.get(0).getRequestId(), equalTo(request.getId()));
     }
 
     @Test
     void shouldFindNoneAllByNoExistOwnerId() {
-        List<Item> emptyList = itemRepository.findAllByOwnerIdOrderById(99L, PageRequest.of(0, 20));
+        List<ItemListEntry> emptyList = itemRepository.findAllByOwnerIdOrderById(99L, PageRequest.of(0, 20));
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
     void shouldFindByNameOrDescription() {
-        List<Item> items = itemRepository
-                .findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-                "item", "description", true, PageRequest.of(0, 20));
+        List<ItemListEntry> items = itemRepository.searchAvailable("DESCRIPT", PageRequest.of(0, 20));
         assertThat(items.size(), equalTo(1));
-        assertThat(items.get(0), equalTo(item));
+        assertThat(items.get(0).getId(), equalTo(item.getId()));
     }
 
     @Test
     void shouldFindNoneByNameOrDescription() {
-        List<Item> emptyList = itemRepository
-                .findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-                        "text", "text1", true, PageRequest.of(0, 20));
+        List<ItemListEntry> emptyList = itemRepository.searchAvailable("text", PageRequest.of(0, 20));
         assertThat(emptyList.size(), equalTo(0));
     }
+
+    @Test
+    void shouldMatchEscapedWildcardsLiterally() {
+        Item discount = createItem(owner);
+        discount.setName("discount 100%");
+        Item bulk = createItem(owner);
+        bulk.setName("1000 pieces");
+        Item snake = createItem(owner);
+        snake.setName("snake_case");
+        em.persist(discount);
+        em.persist(bulk);
+        em.persist(snake);
+        assertThat(ids(itemRepository.searchAvailable("100\\%", PageRequest.of(0, 20))),
+                equalTo(List.of(discount.getId())));
+        assertThat(ids(itemRepository.searchAvailable("e\\_c", PageRequest.of(0, 20))),
+                equalTo(List.of(snake.getId())));
+    }
+
+    @Test
+    void shouldFindSearchViewsByIdAfter() {
+        List<ItemSearchView> views = itemRepository.findSearchViewsByIdAfter(0L, PageRequest.of(0, 20));
+        assertThat(views.size(), equalTo(1));
+        assertThat(views.get(0).getId(), equalTo(item.getId()));
+        assertThat(views.get(0).getName(), equalTo("item"));
+        assertThat(itemRepository.findSearchViewsByIdAfter(item.getId(), PageRequest.of(0, 20)).size(), equalTo(0));
+    }
+
+    @Test
+    void shouldNotFindUnavailableItemMatchedByName() {
+        Item unavailable = createItem(owner);
+        unavailable.setName("unavailable item");
+        unavailable.setAvailable(false);
+        em.persist(unavailable);
+        List<ItemListEntry> items = itemRepository.searchAvailable("item", PageRequest.of(0, 20));
+        assertThat(ids(items), equalTo(List.of(item.getId())));
+    }
+
+    @Test
+    void shouldSearchOnlyAvailableItemsOnLargeDataset() {
+        for (int i = 0; i < 2000; i++) {
+            em.persist(Item.builder()
+                    .name(i % 2 == 0 ? "Дрель " + i : "Молоток " + i)
+                    .description(i % 3 == 0 ? "аккумуляторная" : "обычная")
+                    .available(i % 4 < 2)
+                    .owner(owner)
+                    .build());
+        }
+        em.flush();
+        List<ItemListEntry> drills = itemRepository.searchAvailable("дрель", PageRequest.of(0, 2000));
+        List<ItemListEntry> cordless = itemRepository.searchAvailable("АККУМУЛЯТОР", PageRequest.of(0, 2000));
+        assertThat(drills.size(), equalTo(500));
+        assertThat(cordless.size(), equalTo(333));
+        assertThat(drills.stream().allMatch(ItemListEntry::getAvailable), equalTo(true));
+        assertThat(cordless.stream().allMatch(ItemListEntry::getAvailable), equalTo(true));
+        assertThat(itemRepository.searchAvailable("дрель", PageRequest.of(0, 20)).size(), equalTo(20));
+    }
+
+    @Test
+    void shouldSearchAvailableItemsThroughIndex() {
+        String plan = (String) em.getEntityManager().createNativeQuery("EXPLAIN SELECT * FROM items " +
+                "WHERE available = TRUE " +
+                "AND (UPPER(name) LIKE UPPER('%дрель%') OR UPPER(description) LIKE UPPER('%дрель%')) " +
+                "ORDER BY id LIMIT 20").getSingleResult();
+        assertThat(plan.toUpperCase().contains("ITEMS_AVAILABLE_ID_IDX"), equalTo(true));
+    }
 }
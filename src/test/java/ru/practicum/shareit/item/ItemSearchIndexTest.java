@@ -0,0 +1,151 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.ItemSearchView;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ItemSearchIndexTest {
+    private ItemRepository itemRepository;
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findSearchViewsByIdAfter(anyLong(), any())).thenReturn(Collections.emptyList());
+        index = new ItemSearchIndex(itemRepository);
+        index.warmUp();
+        index.index(1L, "Дрель", "Простая дрель", true);
+        index.index(2L, "Аккумуляторная дрель", "Аккумуляторная дрель + аккумулятор", true);
+        index.index(3L, "Отвертка", "Аккумуляторная отвертка", false);
+        index.index(4L, "Ёлка", "Искусственная, 2 метра", true);
+    }
+
+    @Test
+    void shouldNotServeBeforeWarmUp() {
+        ItemSearchIndex coldIndex = new ItemSearchIndex(itemRepository);
+        coldIndex.index(1L, "Дрель", "Простая дрель", true);
+        assertThat(coldIndex.search("дрель", 0, 20), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldKeepLiveChangesMadeDuringWarmUp() {
+        ItemSearchIndex coldIndex = new ItemSearchIndex(itemRepository);
+        when(itemRepository.findSearchViewsByIdAfter(anyLong(), any())).thenAnswer(invocationOnMock -> {
+            coldIndex.index(1L, "Молоток", "Обычный молоток", true);
+            coldIndex.remove(2L);
+            return List.of(searchView(1L, "Дрель"), searchView(2L, "Отвертка"), searchView(3L, "Пила"));
+        });
+        coldIndex.warmUp();
+        assertThat(coldIndex.search("дрель", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+        assertThat(coldIndex.search("молоток", 0, 20), equalTo(Optional.of(List.of(1L))));
+        assertThat(coldIndex.search("отвертка", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+        assertThat(coldIndex.search("пила", 0, 20), equalTo(Optional.of(List.of(3L))));
+    }
+
+    private static ItemSearchView searchView(long id, String name) {
+        ItemSearchView view = mock(ItemSearchView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getName()).thenReturn(name);
+        when(view.getDescription()).thenReturn(name);
+        when(view.getAvailable()).thenReturn(true);
+        return view;
+    }
+
+    @Test
+    void shouldNotServeTextShorterThanGram() {
+        assertThat(index.search("др", 0, 20), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldFindSubstringIgnoringCase() {
+        assertThat(index.search("аккУМУляторная", 0, 20), equalTo(Optional.of(List.of(2L))));
+        assertThat(index.search("ДРЕЛЬ", 0, 20), equalTo(Optional.of(List.of(1L, 2L))));
+        assertThat(index.search("umu", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldNormalizeYo() {
+        assertThat(index.search("елка", 0, 20), equalTo(Optional.of(List.of(4L))));
+        assertThat(index.search("ёлКА", 0, 20), equalTo(Optional.of(List.of(4L))));
+    }
+
+    @Test
+    void shouldSkipUnavailableItems() {
+        assertThat(index.search("отвертка", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldPaginateFoundItems() {
+        assertThat(index.search("дрель", 1, 20), equalTo(Optional.of(List.of(2L))));
+        assertThat(index.search("дрель", 0, 1), equalTo(Optional.of(List.of(1L))));
+    }
+
+    @Test
+    void shouldReindexUpdatedAndRemovedItems() {
+        index.index(3L, "Отвертка", "Аккумуляторная отвертка", true);
+        index.index(1L, "Молоток", "Обычный молоток", true);
+        index.remove(4L);
+        assertThat(index.search("отвертка", 0, 20), equalTo(Optional.of(List.of(3L))));
+        assertThat(index.search("дрель", 0, 20), equalTo(Optional.of(List.of(2L))));
+        assertThat(index.search("елка", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        index.index(5L, "Набор бит", "Подходит к любой дрели", true);
+        assertThat(index.searchRanked("дрель", 0, 20), equalTo(Optional.of(List.of(1L, 2L, 5L))));
+        assertThat(index.searchRanked("аккумуляторная", 0, 20), equalTo(Optional.of(List.of(2L))));
+    }
+
+    @Test
+    void shouldSkipUnavailableItemsInRankedMode() {
+        index.index(5L, "Набор бит", "Подойдет к отвертке", true);
+        assertThat(index.searchRanked("отвертка", 0, 20), equalTo(Optional.of(List.of(5L))));
+    }
+
+    @Test
+    void shouldTolerateSingleTypo() {
+        index.index(3L, "Отвертка", "Аккумуляторная отвертка", true);
+        assertThat(index.searchRanked("дерль", 0, 20), equalTo(Optional.of(List.of(1L, 2L))));
+        assertThat(index.searchRanked("отвёртк", 0, 20), equalTo(Optional.of(List.of(3L))));
+        assertThat(index.searchRanked("отвертушка", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldReturnTopKPage() {
+        assertThat(index.searchRanked("дрель", 1, 1), equalTo(Optional.of(List.of(2L))));
+        assertThat(index.searchRanked("дрель", 5, 1), equalTo(Optional.of(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldSuggestNameTokensByPopularity() {
+        index.index(5L, "Дрель ударная", "Мощная", true);
+        index.index(6L, "Дровокол", "Ручной", true);
+        assertThat(index.suggest("Др", 10), equalTo(List.of("дрель", "дровокол")));
+        assertThat(index.suggest("д", 1), equalTo(List.of("дрель")));
+        assertThat(index.suggest("аккумуляторная д", 10), equalTo(List.of("аккумуляторная дрель",
+                "аккумуляторная дровокол")));
+    }
+
+    @Test
+    void shouldNotSuggestUnavailableOrRemovedItems() {
+        assertThat(index.suggest("отв", 10), equalTo(Collections.emptyList()));
+        index.index(3L, "Отвертка", "Аккумуляторная отвертка", true);
+        assertThat(index.suggest("отв", 10), equalTo(List.of("отвертка")));
+        index.remove(3L);
+        index.remove(4L);
+        assertThat(index.suggest("отв", 10), equalTo(Collections.emptyList()));
+        assertThat(index.suggest("ел", 10), equalTo(Collections.emptyList()));
+    }
+}
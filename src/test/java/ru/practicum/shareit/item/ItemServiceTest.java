@@ -5,20 +5,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.FreeWindow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.model.ItemView;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemViewRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemAvailabilityCalendar;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 import java.time.LocalDateTime;
 import java.util.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -39,8 +51,16 @@ public class ItemServiceTest {
     BookingRepository bookingRepository;
     @MockBean
     CommentRepository commentRepository;
+    @MockBean
+    ItemViewRepository itemViewRepository;
+    @MockBean
+    ArchivedBookingRepository archivedBookingRepository;
     @Autowired
     ItemService itemService;
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+    @Autowired
+    ItemAvailabilityCalendar availabilityCalendar;
     private User owner;
     private Item item;
     private User booker;
@@ -69,6 +89,11 @@ public class ItemServiceTest {
                 .build();
     }
 
+    static ItemListEntry toEntry(Item item) {
+        return new ItemListEntry(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequest() != null ? item.getRequest().getId() : null);
+    }
+
     static User createBooker() {
         return User.builder()
                 .id(2L)
@@ -245,27 +270,274 @@ public class ItemServiceTest {
         Item item1 = createItem(owner);
         Item item2 = createItem(owner);
         item2.setId(2L);
-        List<Item> expectedItemList = List.of(item1, item2);
+        List<Item> expectedItemList = List.of(item1.toBuilder().commentsCount(0).build(),
+                item2.toBuilder().commentsCount(0).build());
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRequestRepository.getReferenceById(1L)).thenReturn(item1.getRequest());
         when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any()))
-                .thenReturn(List.of(item1, item2));
+                .thenReturn(List.of(toEntry(item1), toEntry(item2)));
         List<Item> resultItemList = itemService.getItemsByOwnerId(1L, 0, 20);
         assertThat(resultItemList, equalTo(expectedItemList));
     }
 
+    @Test
+    void shouldGetItemsByOwnerIdAfterCursor() {
+        Item item2 = createItem(owner);
+        item2.setId(2L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(owner.getId(), item.getId(),
+                PageRequest.of(0, 20)))
+                .thenReturn(List.of(toEntry(item2)));
+        List<Item> result = itemService.getItemsByOwnerId(owner.getId(), PageCursor.of(item.getId()), 20);
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(item2.getId()));
+        verify(itemRepository, never()).findAllByOwnerIdOrderById(anyLong(), any());
+    }
+
+    @Test
+    void shouldGroupCommentsByItemId() {
+        Item item2 = createItem(owner);
+        item2.setId(2L);
+        Comment comment2 = createComment(booker, item2);
+        comment2.setId(2L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any()))
+                .thenReturn(List.of(toEntry(item), toEntry(item2)));
+        when(commentRepository.findAllByItemIds(anyCollection()))
+                .thenReturn(List.of(comment, comment2));
+        List<Item> result = itemService.getItemsByOwnerId(owner.getId(), 0, 20);
+        assertThat(result.get(0).getComments(), equalTo(List.of(comment)));
+        assertThat(result.get(1).getComments(), equalTo(List.of(comment2)));
+        assertThat(result.get(0).getCommentsCount(), equalTo(1));
+    }
+
+    @Test
+    void shouldLimitCommentsToLatestWithTotalCount() {
+        Object target = AopTestUtils.getTargetObject(itemService);
+        ReflectionTestUtils.setField(target, "commentsLimit", 2);
+        try {
+            List<Comment> comments = new ArrayList<>();
+            for (long i = 1; i <= 5; i++) {
+                Comment newComment = createComment(booker, item);
+                newComment.setId(i);
+                newComment.setCreated(LocalDateTime.now().minusHours(i));
+                comments.add(newComment);
+            }
+            when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+            when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+            when(commentRepository.findAllByItemId(item.getId())).thenReturn(comments);
+            Item result = itemService.getById(item.getId(), owner.getId());
+            assertThat(result.getComments(), equalTo(comments.subList(0, 2)));
+            assertThat(result.getCommentsCount(), equalTo(5));
+        } finally {
+            ReflectionTestUtils.setField(target, "commentsLimit", 0);
+        }
+    }
+
+    @Test
+    void shouldGetAvailabilityFromNowByDefault() {
+        availabilityCalendar.evict(item.getId());
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(bookingRepository.findAllByItemIdAndStatusAndEndAfter(eq(item.getId()), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(booking));
+        List<FreeWindow> windows = itemService.getAvailability(item.getId(), null, null);
+        assertThat(windows.size(), equalTo(2));
+        assertThat(windows.get(0).getEnd(), equalTo(booking.getStart()));
+        assertThat(windows.get(1).getStart(), equalTo(booking.getEnd()));
+        assertThat(windows.get(1).getEnd(), equalTo(windows.get(0).getStart().plusDays(30)));
+    }
+
+    @Test
+    void shouldGetNoAvailabilityForUnavailableItem() {
+        availabilityCalendar.evict(item.getId());
+        item.setAvailable(Boolean.FALSE);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        List<FreeWindow> windows = itemService.getAvailability(item.getId(), null, null);
+        assertThat(windows.size(), equalTo(0));
+        verify(bookingRepository, never()).findAllByItemIdAndStatusAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldThrowOnGetAvailabilityForEmptyPeriod() {
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        LocalDateTime from = LocalDateTime.now().plusDays(2);
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(item.getId(), from, from));
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(item.getId(), null, LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void shouldGetItemByIdFromFreshView() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemViewRepository.findById(item.getId()))
+                .thenReturn(Optional.of(ItemView.builder()
+                        .itemId(item.getId())
+                        .item(item)
+                        .lastBooking(lastBooking)
+                        .nextBooking(booking)
+                        .refreshAt(LocalDateTime.now().plusDays(1))
+                        .build()));
+        when(commentRepository.findAllByItemId(item.getId()))
+                .thenReturn(List.of(comment));
+        Item result = itemService.getById(item.getId(), owner.getId());
+        assertThat(result.getLastBooking(), equalTo(lastBooking));
+        assertThat(result.getNextBooking(), equalTo(booking));
+        verify(itemRepository, never()).findById(anyLong());
+        verify(bookingRepository, never()).findNextByItemIds(anyCollection(), any(), any());
+    }
+
+    @Test
+    void shouldTakeOwnerAndCommentCountFromFreshView() {
+        when(itemViewRepository.findById(item.getId()))
+                .thenReturn(Optional.of(ItemView.builder()
+                        .itemId(item.getId())
+                        .item(item)
+                        .commentCount(7)
+                        .build()));
+        Item result = itemService.getById(item.getId(), owner.getId());
+        assertThat(result.getCommentsCount(), equalTo(7));
+        assertThat(result.getOwner(), equalTo(owner));
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldGetArchivedLastBookingForFreshView() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemViewRepository.findById(item.getId()))
+                .thenReturn(Optional.of(ItemView.builder()
+                        .itemId(item.getId())
+                        .item(item)
+                        .lastBookingId(lastBooking.getId())
+                        .build()));
+        when(archivedBookingRepository.findWithItemAndBookerById(lastBooking.getId()))
+                .thenReturn(Optional.of(ArchivedBooking.builder()
+                        .id(lastBooking.getId())
+                        .start(lastBooking.getStart())
+                        .end(lastBooking.getEnd())
+                        .item(item)
+                        .booker(booker)
+                        .status(Status.APPROVED)
+                        .build()));
+        Item result = itemService.getById(item.getId(), owner.getId());
+        assertThat(result.getLastBooking().getId(), equalTo(lastBooking.getId()));
+        assertThat(result.getLastBooking().getStart(), equalTo(lastBooking.getStart()));
+        verify(bookingRepository, never()).findLastByItemIds(anyCollection(), any(), any());
+    }
+
+    @Test
+    void shouldGetItemByIdLiveWhenViewIsStale() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemViewRepository.findById(item.getId()))
+                .thenReturn(Optional.of(ItemView.builder()
+                        .itemId(item.getId())
+                        .item(item)
+                        .refreshAt(LocalDateTime.now().minusMinutes(1))
+                        .build()));
+        when(bookingRepository.findNextByItemIds(anyCollection(), any(), any()))
+                .thenReturn(List.of(booking));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        Item result = itemService.getById(item.getId(), owner.getId());
+        assertThat(result.getNextBooking(), equalTo(booking));
+    }
+
+    @Test
+    void shouldHideViewBookingsFromNotOwner() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemViewRepository.findById(item.getId()))
+                .thenReturn(Optional.of(ItemView.builder()
+                        .itemId(item.getId())
+                        .item(item)
+                        .nextBooking(booking)
+                        .build()));
+        Item result = itemService.getById(item.getId(), booker.getId());
+        assertThat(result.getNextBooking(), equalTo(null));
+    }
+
     @Test
     void shouldGetItemById() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDescItemIdDesc(anyLong(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(anyLong(), any(), any()))
-                .thenReturn(Optional.of(booking));
+        when(bookingRepository.findLastByItemIds(anyCollection(), any(), any()))
+                .thenReturn(List.of(lastBooking));
+        when(bookingRepository.findNextByItemIds(anyCollection(), any(), any()))
+                .thenReturn(List.of(booking));
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(item.getId()))
                 .thenReturn(List.of(comment));
         Item result = itemService.getById(item.getId(), owner.getId());
         assertThat(item.getId(), equalTo(result.getId()));
+        assertThat(result.getLastBooking(), equalTo(lastBooking));
+        assertThat(result.getNextBooking(), equalTo(booking));
+    }
+
+    @Test
+    void shouldGetItemByIdWithoutBookingsForNotOwner() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        Item result = itemService.getById(item.getId(), booker.getId());
+        assertThat(result.getLastBooking(), equalTo(null));
+        assertThat(result.getNextBooking(), equalTo(null));
+        verify(bookingRepository, never()).findLastByItemIds(anyCollection(), any(), any());
+        verify(bookingRepository, never()).findNextByItemIds(anyCollection(), any(), any());
+    }
+
+    @Test
+    void shouldGetAllItemsByOwnerWithBookingsMatchedByItemId() {
+        Item item2 = createItem(owner);
+        item2.setId(2L);
+        Booking nextBooking = createBooking(booker, item2);
+        nextBooking.setId(2L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any()))
+                .thenReturn(List.of(toEntry(item), toEntry(item2)));
+        when(bookingRepository.findLastByItemIds(anyCollection(), any(), any()))
+                .thenReturn(List.of(lastBooking));
+        when(bookingRepository.findNextByItemIds(anyCollection(), any(), any()))
+                .thenReturn(List.of(nextBooking));
+        List<Item> result = itemService.getItemsByOwnerId(owner.getId(), 0, 20);
+        assertThat(result.get(0).getLastBooking(), equalTo(lastBooking));
+        assertThat(result.get(0).getNextBooking(), equalTo(null));
+        assertThat(result.get(1).getLastBooking(), equalTo(null));
+        assertThat(result.get(1).getNextBooking(), equalTo(nextBooking));
+        verify(bookingRepository, times(1)).findLastByItemIds(anyCollection(), any(), any());
+        verify(bookingRepository, times(1)).findNextByItemIds(anyCollection(), any(), any());
+    }
+
+    @Test
+    void shouldReplaceOverlappedNextBookingsInOneQuery() {
+        Item item2 = createItem(owner);
+        item2.setId(2L);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> lastBookings = new ArrayList<>();
+        List<Booking> nextBookings = new ArrayList<>();
+        List<Booking> afterBookings = new ArrayList<>();
+        for (Item bookedItem : List.of(item, item2)) {
+            long id = bookedItem.getId() * 10;
+            lastBookings.add(Booking.builder().id(id).item(bookedItem).booker(booker)
+                    .start(now.minusDays(1)).end(now.plusDays(2)).status(Status.APPROVED).build());
+            nextBookings.add(Booking.builder().id(id + 1).item(bookedItem).booker(booker)
+                    .start(now.plusDays(1)).end(now.plusDays(3)).status(Status.APPROVED).build());
+            afterBookings.add(Booking.builder().id(id + 2).item(bookedItem).booker(booker)
+                    .start(now.plusDays(4)).end(now.plusDays(5)).status(Status.APPROVED).build());
+        }
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any()))
+                .thenReturn(List.of(toEntry(item), toEntry(item2)));
+        when(bookingRepository.findLastByItemIds(anyCollection(), any(), any())).thenReturn(lastBookings);
+        when(bookingRepository.findNextByItemIds(anyCollection(), any(), any())).thenReturn(nextBookings);
+        when(bookingRepository.findNextAfterBookings(anyCollection(), any())).thenReturn(afterBookings);
+        List<Item> result = itemService.getItemsByOwnerId(owner.getId(), 0, 20);
+        assertThat(result.get(0).getNextBooking(), equalTo(afterBookings.get(0)));
+        assertThat(result.get(1).getNextBooking(), equalTo(afterBookings.get(1)));
+        verify(bookingRepository, times(1)).findNextAfterBookings(
+                argThat(ids -> Set.copyOf(ids).equals(Set.of(10L, 20L))), eq(Status.APPROVED));
     }
 
     @Test
@@ -280,18 +552,57 @@ public class ItemServiceTest {
 
     @Test
     void shouldGetItemByNameOrDescription() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailable(
-                anyString(), anyString(), anyBoolean(), any()))
-                .thenReturn(List.of(item));
-        List<Item> result = itemService.getItemsByNameOrDescription("itemName", 0, 20);
+        itemSearchIndex.index(item);
+        when(itemRepository.findAllByIdIn(List.of(item.getId())))
+                .thenReturn(List.of(toEntry(item)));
+        List<ItemListEntry> result = itemService.getItemsByNameOrDescription("itemName", 0, 20);
+        assertThat(result.get(0).getId(), equalTo(item.getId()));
+        verify(itemRepository, never()).searchAvailable(anyString(), any());
+        itemSearchIndex.remove(item.getId());
+    }
+
+    @Test
+    void shouldGetItemByRelevance() {
+        itemSearchIndex.index(item);
+        when(itemRepository.findAllByIdIn(List.of(item.getId())))
+                .thenReturn(List.of(toEntry(item)));
+        List<ItemListEntry> result = itemService.getItemsByRelevance("itemNme", 0, 20);
+        assertThat(result, equalTo(List.of(toEntry(item))));
+        assertThat(itemService.getItemsByRelevance(" ", 0, 20).size(), equalTo(0));
+        itemSearchIndex.remove(item.getId());
+    }
+
+    @Test
+    void shouldGetItemByShortTextFromRepository() {
+        when(itemRepository.searchAvailable(anyString(), any()))
+                .thenReturn(List.of(toEntry(item)));
+        List<ItemListEntry> result = itemService.getItemsByNameOrDescription("it", 0, 20);
         assertThat(result.get(0).getId(), equalTo(item.getId()));
     }
 
+    @Test
+    void shouldEscapeWildcardsInRepositorySearch() {
+        when(itemRepository.searchAvailable(anyString(), any()))
+                .thenReturn(List.of(toEntry(item)));
+        itemService.getItemsByNameOrDescription("%", 0, 20);
+        itemService.getItemsByNameOrDescription("_\\", 0, 20);
+        verify(itemRepository).searchAvailable(eq("\\%"), any());
+        verify(itemRepository).searchAvailable(eq("\\_\\\\"), any());
+    }
+
+    @Test
+    void shouldDropDeletedItemFromSearchResults() {
+        itemSearchIndex.index(item);
+        when(itemRepository.findAllByIdIn(anyCollection())).thenReturn(Collections.emptyList());
+        List<ItemListEntry> result = itemService.getItemsByNameOrDescription("itemName", 0, 20);
+        assertThat(result.size(), equalTo(0));
+        assertThat(itemSearchIndex.search("itemName", 0, 20), equalTo(Optional.of(Collections.emptyList())));
+    }
+
     @Test
     void shouldGetNoneItemByNameOrDescriptionWithoutText() {
         itemRepository.save(item);
-        List<Item> result = itemService.getItemsByNameOrDescription("", 0, 20);
+        List<ItemListEntry> result = itemService.getItemsByNameOrDescription("", 0, 20);
         assertThat(result.size(), equalTo(0));
     }
 
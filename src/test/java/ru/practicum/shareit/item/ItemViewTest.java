@@ -0,0 +1,142 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.repository.ItemViewRepository;
+import ru.practicum.shareit.item.service.ItemBookingResolver;
+import ru.practicum.shareit.item.service.ItemViewUpdater;
+import ru.practicum.shareit.user.model.User;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@DataJpaTest
+@Import({ItemViewUpdater.class, ItemBookingResolver.class, ItemLocks.class})
+public class ItemViewTest {
+    @Autowired
+    TestEntityManager em;
+    @Autowired
+    ItemViewRepository itemViewRepository;
+    @Autowired
+    ItemViewUpdater itemViewUpdater;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private User booker;
+    private Item item;
+    private Booking lastBooking;
+    private Booking nextBooking;
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = em.persist(User.builder().name("owner").email("owner@mail.com").build());
+        booker = em.persist(User.builder().name("booker").email("booker@mail.com").build());
+        item = em.persist(Item.builder()
+                .name("item")
+                .description("description")
+                .available(Boolean.TRUE)
+                .owner(owner)
+                .build());
+        lastBooking = em.persist(createBooking(now.plusHours(1), now.plusHours(2)));
+        nextBooking = em.persist(createBooking(now.plusDays(1), now.plusDays(2)));
+        em.flush();
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET start_date = ?, end_date = ? WHERE id = ?")
+                .setParameter(1, now.minusDays(2))
+                .setParameter(2, now.minusDays(1))
+                .setParameter(3, lastBooking.getId())
+                .executeUpdate();
+        em.persist(Comment.builder().text("text").item(item).author(booker).created(now).build());
+        em.flush();
+        em.clear();
+    }
+
+    private Booking createBooking(LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .status(Status.APPROVED)
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .build();
+    }
+
+    @Test
+    void shouldCreateMissingViewsAndFillBookingsOnSweep() {
+        itemViewUpdater.refreshStale();
+        em.flush();
+        em.clear();
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertThat(view.getItem().getId(), equalTo(item.getId()));
+        assertThat(view.getCommentCount(), equalTo(1));
+        assertThat(view.getLastBooking().getId(), equalTo(lastBooking.getId()));
+        assertThat(view.getNextBooking().getId(), equalTo(nextBooking.getId()));
+        assertThat(view.getRefreshAt(), equalTo(nextBooking.getStart().truncatedTo(ChronoUnit.MICROS)));
+        assertThat(itemViewRepository.findStaleItemIds(now, PageRequest.of(0, 10)), equalTo(List.of()));
+        assertThat(itemViewRepository.findStaleItemIds(view.getRefreshAt(), PageRequest.of(0, 10)),
+                equalTo(List.of(item.getId())));
+    }
+
+    @Test
+    void shouldTakeNextBookingAfterEndOfCurrentOne() {
+        Booking current = em.persist(createBooking(now.plusHours(1), now.plusDays(3)));
+        Booking afterCurrent = em.persist(createBooking(now.plusDays(4), now.plusDays(5)));
+        em.flush();
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET start_date = ? WHERE id = ?")
+                .setParameter(1, now.minusHours(1))
+                .setParameter(2, current.getId())
+                .executeUpdate();
+        em.clear();
+        itemViewUpdater.refreshStale();
+        em.flush();
+        em.clear();
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertThat(view.getLastBooking().getId(), equalTo(current.getId()));
+        assertThat(view.getNextBooking().getId(), equalTo(afterCurrent.getId()));
+    }
+
+    @Test
+    void shouldRefreshOnlyExistingViews() {
+        itemViewUpdater.refresh(List.of(item.getId()));
+        em.flush();
+        assertThat(itemViewRepository.findById(item.getId()).isPresent(), equalTo(false));
+        itemViewRepository.insertMissing(now, 10);
+        itemViewUpdater.refresh(List.of(item.getId()));
+        em.flush();
+        em.clear();
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertThat(view.getNextBooking().getId(), equalTo(nextBooking.getId()));
+    }
+
+    @Test
+    void shouldIncrementCommentCount() {
+        itemViewRepository.insertMissing(now, 10);
+        itemViewUpdater.incrementCommentCount(item.getId());
+        em.clear();
+        assertThat(itemViewRepository.findById(item.getId()).orElseThrow().getCommentCount(), equalTo(2));
+    }
+
+    @Test
+    void shouldIgnoreDeletedBookingInView() {
+        itemViewUpdater.refreshStale();
+        em.flush();
+        em.getEntityManager().createNativeQuery("DELETE FROM bookings WHERE id = ?")
+                .setParameter(1, lastBooking.getId())
+                .executeUpdate();
+        em.clear();
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertThat(view.getLastBooking(), nullValue());
+        assertThat(view.getNextBooking().getId(), equalTo(nextBooking.getId()));
+    }
+}
@@ -10,8 +10,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.PageCursor;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -21,6 +23,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,6 +37,7 @@ public class ItemRequestControllerTest {
     ItemRequestService itemRequestService;
     private User requester;
     private ItemRequest itemRequest;
+    private ItemRequestListEntry itemRequestEntry;
     private ItemRequestDto itemRequestDto;
 
     static User createOwner() {
@@ -88,6 +92,8 @@ public class ItemRequestControllerTest {
         requester = createRequester();
         Item item = createItem(owner);
         itemRequest = createRequest(requester, item);
+        itemRequestEntry = new ItemRequestListEntry(itemRequest.getId(), itemRequest.getDescription(),
+                itemRequest.getCreated());
         itemRequestDto = createDto();
     }
 
@@ -120,7 +126,7 @@ public class ItemRequestControllerTest {
     @Test
     void shouldGetAllOwnerRequests() throws Exception {
         when(itemRequestService.getAllByRequesterId(anyLong()))
-                .thenReturn(List.of(itemRequest));
+                .thenReturn(List.of(itemRequestEntry));
         mockMvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", requester.getId())
                         .accept(MediaType.APPLICATION_JSON))
@@ -133,7 +139,7 @@ public class ItemRequestControllerTest {
     @Test
     void shouldNotGetAllOwnerRequestsWithoutUserId() throws Exception {
         when(itemRequestService.getAllByRequesterId(anyLong()))
-                .thenReturn(List.of(itemRequest));
+                .thenReturn(List.of(itemRequestEntry));
         mockMvc.perform(get("/requests")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpectAll(status().is5xxServerError());
@@ -143,7 +149,7 @@ public class ItemRequestControllerTest {
     @Test
     void shouldGetAllRequests() throws Exception {
         when(itemRequestService.getAll(anyLong(), anyInt(), anyInt()))
-                .thenReturn(List.of(itemRequest));
+                .thenReturn(List.of(itemRequestEntry));
         mockMvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", requester.getId())
                         .param("from", "0")
@@ -158,7 +164,7 @@ public class ItemRequestControllerTest {
     @Test
     void shouldNotGetAllRequestsWithoutUserId() throws Exception {
         when(itemRequestService.getAll(anyLong(), anyInt(), anyInt()))
-                .thenReturn(List.of(itemRequest));
+                .thenReturn(List.of(itemRequestEntry));
         mockMvc.perform(get("/requests/all")
                         .param("from", "0")
                         .param("size", "3")
@@ -167,6 +173,23 @@ public class ItemRequestControllerTest {
         verify(itemRequestService, never()).getAll(anyLong(), anyInt(), anyInt());
     }
 
+    @Test
+    void shouldGetAllRequestsAfterCursorWithNextCursorHeader() throws Exception {
+        PageCursor after = PageCursor.of(itemRequest.getCreated().minusDays(1), 7L);
+        when(itemRequestService.getAll(requester.getId(), after, 1))
+                .thenReturn(List.of(itemRequestEntry));
+        mockMvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", requester.getId())
+                        .param("size", "1")
+                        .param("after", after.encode())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$", hasSize(1)),
+                        header().string(PageCursor.NEXT_CURSOR_HEADER,
+                                PageCursor.of(itemRequest.getCreated(), itemRequest.getId()).encode()));
+        verify(itemRequestService, never()).getAll(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void shouldGetRequestById() throws Exception {
         when(itemRequestService.getById(anyLong(), anyLong()))
@@ -6,12 +6,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
@@ -57,6 +61,12 @@ public class ItemRequestRepositoryTest {
                 .build();
     }
 
+    static List<Long> ids(List<ItemRequestListEntry> itemRequests) {
+        return itemRequests.stream()
+                .map(ItemRequestListEntry::getId)
+                .collect(Collectors.toList());
+    }
+
     @BeforeEach
     void beforeEach() {
         owner = createOwner();
@@ -71,30 +81,61 @@ public class ItemRequestRepositoryTest {
 
     @Test
     void shouldFindAllByRequesterId() {
-        List<ItemRequest> itemRequests = itemRequestRepository
+        List<ItemRequestListEntry> itemRequests = itemRequestRepository
                 .findAllByRequesterIdOrderByCreatedDesc(requester.getId());
         assertThat(itemRequests.size(), equalTo(1));
-        assertThat(itemRequests.get(0), equalTo(itemRequest));
+        assertThat(itemRequests.get(0).getId(), equalTo(itemRequest.getId()));
+        assertThat(itemRequests.get(0).getDescription(), equalTo(itemRequest.getDescription()));
     }
 
     @Test
     void shouldFindNoneAllByNoExistRequesterId() {
-        List<ItemRequest> emptyList = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(99L);
+        List<ItemRequestListEntry> emptyList = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(99L);
         assertThat(emptyList.size(), equalTo(0));
     }
 
     @Test
     void shouldFindRequestAnotherUsers() {
-        List<ItemRequest> itemRequests = itemRequestRepository
+        List<ItemRequestListEntry> itemRequests = itemRequestRepository
                 .findAllByRequesterIdNot(owner.getId(), PageRequest.of(0, 20));
         assertThat(itemRequests.size(), equalTo(1));
-        assertThat(itemRequests.get(0), equalTo(itemRequest));
+        assertThat(itemRequests.get(0).getId(), equalTo(itemRequest.getId()));
     }
 
     @Test
     void shouldFindNoneRequestAnotherUsersByNoExistRequester() {
-        List<ItemRequest> emptyList = itemRequestRepository
+        List<ItemRequestListEntry> emptyList = itemRequestRepository
                 .findAllByRequesterIdNot(requester.getId(), PageRequest.of(0, 20));
         assertThat(emptyList.size(), equalTo(0));
     }
+
+    @Test
+    void shouldFindRequestAnotherUsersAfterCursor() {
+        itemRequest.setCreated(itemRequest.getCreated().truncatedTo(ChronoUnit.MICROS));
+        em.flush();
+        ItemRequest sameCreated = createRequest(requester, itemRequest.getItems().get(0));
+        sameCreated.setCreated(itemRequest.getCreated());
+        ItemRequest later = createRequest(requester, itemRequest.getItems().get(0));
+        later.setCreated(itemRequest.getCreated().plusMinutes(1));
+        em.persist(sameCreated);
+        em.persist(later);
+        List<ItemRequestListEntry> itemRequests = itemRequestRepository.findAllByRequesterIdNotAfter(owner.getId(),
+                itemRequest.getCreated(), itemRequest.getId(), PageRequest.of(0, 20));
+        List<ItemRequestListEntry> firstOnly = itemRequestRepository.findAllByRequesterIdNotAfter(owner.getId(),
+                itemRequest.getCreated(), itemRequest.getId(), PageRequest.of(0, 1));
+        assertThat(ids(itemRequests), equalTo(List.of(sameCreated.getId(), later.getId())));
+        assertThat(ids(firstOnly), equalTo(List.of(sameCreated.getId())));
+    }
+
+    @Test
+    void shouldReturnRequestsWithoutItems() {
+        itemRequest.setCreated(itemRequest.getCreated().truncatedTo(ChronoUnit.MICROS));
+        em.flush();
+        em.clear();
+        List<ItemRequestListEntry> itemRequests = itemRequestRepository.findAllByRequesterIdNot(owner.getId(),
+                PageRequest.of(0, 20, Sort.by("created")));
+        assertThat(itemRequests.size(), equalTo(1));
+        assertThat(itemRequests.get(0).getCreated(), equalTo(itemRequest.getCreated()));
+        assertThat(itemRequests.get(0).getItems(), equalTo(null));
+    }
 }
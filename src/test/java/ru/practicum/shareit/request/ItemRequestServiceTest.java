@@ -5,12 +5,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.ItemListEntry;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestListEntry;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.utils.PageCursor;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +25,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +35,8 @@ public class ItemRequestServiceTest {
     ItemRequestRepository itemRequestRepository;
     @MockBean
     UserRepository userRepository;
+    @MockBean
+    ItemRepository itemRepository;
     @Autowired
     ItemRequestService itemRequestService;
     private ItemRequest itemRequest1;
@@ -73,6 +82,10 @@ public class ItemRequestServiceTest {
                 .build();
     }
 
+    static ItemRequestListEntry toEntry(ItemRequest itemRequest) {
+        return new ItemRequestListEntry(itemRequest.getId(), itemRequest.getDescription(), itemRequest.getCreated());
+    }
+
     @Test
     void shouldCreateItemRequest() {
         when(itemRequestRepository.save(any()))
@@ -104,11 +117,12 @@ public class ItemRequestServiceTest {
     void shouldGetRequestsByOwner() {
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(requester1));
+        List<ItemRequestListEntry> requests = List.of(toEntry(itemRequest1), toEntry(itemRequest2));
         when(itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(anyLong()))
-                .thenReturn(List.of(itemRequest1, itemRequest2));
-        List<ItemRequest> resultItemRequests = itemRequestService.getAllByRequesterId(1L);
+                .thenReturn(requests);
+        List<ItemRequestListEntry> resultItemRequests = itemRequestService.getAllByRequesterId(1L);
         assertThat(resultItemRequests.size(), equalTo(2));
-        assertThat(resultItemRequests, equalTo(List.of(itemRequest1, itemRequest2)));
+        assertThat(resultItemRequests, equalTo(requests));
     }
 
     @Test
@@ -120,11 +134,46 @@ public class ItemRequestServiceTest {
                 .thenAnswer(invocationOnMock -> {
                     long ownerId = invocationOnMock.getArgument(0);
                     return requests.stream().filter(r -> r.getRequester().getId() != ownerId)
+                            .map(ItemRequestServiceTest::toEntry)
                             .collect(Collectors.toList());
                 });
-        List<ItemRequest> resultItemRequests = itemRequestService.getAll(1L, 0, 20);
+        List<ItemRequestListEntry> resultItemRequests = itemRequestService.getAll(1L, 0, 20);
+        assertThat(resultItemRequests.size(), equalTo(1));
+        assertThat(resultItemRequests.get(0).getId(), equalTo(itemRequest3.getId()));
+        verify(itemRepository).findAllByRequestIdIn(List.of(itemRequest3.getId()));
+    }
+
+    @Test
+    void shouldAttachItemsToRequestsPage() {
+        ItemListEntry item = new ItemListEntry(1L, "item", "description", true, itemRequest3.getId());
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(requester1));
+        when(itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(anyLong()))
+                .thenReturn(List.of(toEntry(itemRequest1), toEntry(itemRequest3)));
+        when(itemRepository.findAllByRequestIdIn(List.of(itemRequest1.getId(), itemRequest3.getId())))
+                .thenReturn(List.of(item));
+        List<ItemRequestListEntry> resultItemRequests = itemRequestService.getAllByRequesterId(1L);
+        assertThat(resultItemRequests.get(0).getItems(), equalTo(List.of()));
+        assertThat(resultItemRequests.get(1).getItems(), equalTo(List.of(item)));
+    }
+
+    @Test
+    void shouldGetAllRequestsAfterCursor() {
+        PageCursor after = PageCursor.of(itemRequest1.getCreated(), 1L);
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(requester1));
+        when(itemRequestRepository.findAllByRequesterIdNotAfter(1L, after.getKey(), 1L, PageRequest.of(0, 20)))
+                .thenReturn(List.of(toEntry(itemRequest3)));
+        List<ItemRequestListEntry> resultItemRequests = itemRequestService.getAll(1L, after, 20);
         assertThat(resultItemRequests.size(), equalTo(1));
-        assertThat(resultItemRequests, equalTo(List.of(itemRequest3)));
+        assertThat(resultItemRequests.get(0).getId(), equalTo(itemRequest3.getId()));
+    }
+
+    @Test
+    void shouldThrowOnGetAllRequestsWithCursorWithoutCreated() {
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(requester1));
+        assertThrows(ValidationException.class, () -> itemRequestService.getAll(1L, PageCursor.of(1L), 20));
     }
 
     @Test
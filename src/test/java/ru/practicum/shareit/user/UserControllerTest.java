@@ -8,15 +8,25 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 import java.util.List;
+import java.util.function.Consumer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -29,6 +39,7 @@ public class UserControllerTest {
     UserService userService;
     private UserDto userDto;
     private User user;
+    private UserListEntry userEntry;
 
     static User createUser() {
         return User.builder()
@@ -50,6 +61,7 @@ public class UserControllerTest {
     void beforeEach() {
         userDto = createDto();
         user = createUser();
+        userEntry = new UserListEntry(user.getId(), user.getName(), user.getEmail());
     }
 
     @Test
@@ -102,13 +114,72 @@ public class UserControllerTest {
 
     @Test
     void shouldGetAllUsers() throws Exception {
-        when(userService.getAll())
-                .thenReturn(List.of(user));
+        when(userService.getAll(0, 20))
+                .thenReturn(List.of(userEntry));
         mockMvc.perform(get("/users")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpectAll(status().is2xxSuccessful(),
                         jsonPath("$[0].id").value(user.getId()),
-                        jsonPath("$[0].name").value(user.getName())
+                        jsonPath("$[0].name").value(user.getName()),
+                        header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER)
                 );
     }
+
+    @Test
+    void shouldGetUsersPageWithoutAcceptHeader() throws Exception {
+        when(userService.getAll(2, 1))
+                .thenReturn(List.of(userEntry));
+        mockMvc.perform(get("/users")
+                        .param("from", "2")
+                        .param("size", "1"))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$[0].id").value(user.getId()),
+                        header().string(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(user.getId()).encode())
+                );
+    }
+
+    @Test
+    void shouldGetUsersAfterCursor() throws Exception {
+        when(userService.getAll(PageCursor.of(0L), 1))
+                .thenReturn(List.of(userEntry));
+        mockMvc.perform(get("/users")
+                        .param("size", "1")
+                        .param("after", PageCursor.of(0L).encode())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(status().is2xxSuccessful(),
+                        jsonPath("$[0].id").value(user.getId()));
+        verify(userService, never()).getAll(anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldNotGetUsersWithInvalidSize() throws Exception {
+        mockMvc.perform(get("/users")
+                        .param("size", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().is4xxClientError());
+        verify(userService, never()).getAll(anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldStreamAllUsersAsNdjson() throws Exception {
+        UserListEntry other = new UserListEntry(2L, "other", "other@mail.com");
+        doAnswer(invocationOnMock -> {
+            Consumer<UserListEntry> action = invocationOnMock.getArgument(0);
+            action.accept(userEntry);
+            action.accept(other);
+            return null;
+        }).when(userService).streamAll(any());
+        MvcResult result = mockMvc.perform(get("/users")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpectAll(status().is2xxSuccessful(),
+                        content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        UserDto otherDto = UserDto.builder().id(2L).name("other").email("other@mail.com").build();
+        assertThat(body, equalTo(mapper.writeValueAsString(userDto) + "\n"
+                + mapper.writeValueAsString(otherDto) + "\n"));
+        verify(userService, never()).getAll(anyInt(), anyInt());
+    }
 }
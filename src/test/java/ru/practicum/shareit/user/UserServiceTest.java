@@ -5,15 +5,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserListEntry;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
+import ru.practicum.shareit.utils.PageRequestCustom;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.*;
@@ -75,18 +82,42 @@ public class UserServiceTest {
         assertThat(1L, equalTo(resultUser.getId()));
     }
 
+    static UserListEntry toEntry(User user) {
+        return new UserListEntry(user.getId(), user.getName(), user.getEmail());
+    }
+
     @Test
     void shouldGetAllUsers() {
-        List<User> users = List.of(user1, user2);
-        when(userRepository.findAll()).thenReturn(users);
-        List<User> userList = userService.getAll();
+        List<UserListEntry> users = List.of(toEntry(user1), toEntry(user2));
+        when(userRepository.findAllByOrderById(PageRequestCustom.get(0, 20))).thenReturn(users);
+        List<UserListEntry> userList = userService.getAll(0, 20);
         assertThat(userList.size(), equalTo(2));
     }
 
+    @Test
+    void shouldGetUsersAfterCursor() {
+        when(userRepository.findAllByIdGreaterThanOrderById(1L, PageRequest.of(0, 20)))
+                .thenReturn(List.of(toEntry(user2)));
+        List<UserListEntry> userList = userService.getAll(PageCursor.of(1L), 20);
+        assertThat(userList, equalTo(List.of(toEntry(user2))));
+        verify(userRepository, never()).findAllByOrderById(any());
+    }
+
+    @Test
+    void shouldStreamAllUsersAndCloseStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userRepository.streamAllByOrderById())
+                .thenReturn(Stream.of(toEntry(user1), toEntry(user2)).onClose(() -> closed.set(true)));
+        List<UserListEntry> streamed = new ArrayList<>();
+        userService.streamAll(streamed::add);
+        assertThat(streamed, equalTo(List.of(toEntry(user1), toEntry(user2))));
+        assertThat(closed.get(), equalTo(true));
+    }
+
     @Test
     void shouldGetEmptyByAllUsers() {
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
-        List<User> userList = userService.getAll();
+        when(userRepository.findAllByOrderById(any())).thenReturn(Collections.emptyList());
+        List<UserListEntry> userList = userService.getAll(0, 20);
         assertThat(userList.size(), equalTo(0));
     }
 
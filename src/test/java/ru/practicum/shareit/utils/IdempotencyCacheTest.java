@@ -0,0 +1,148 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ValidationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyCacheTest {
+    private final IdempotencyCache cache = new IdempotencyCache();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void beforeEach() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "waitTimeoutMillis", 5000L);
+    }
+
+    @Test
+    void shouldReturnOriginalResultForRepeatedKey() {
+        assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(1));
+        assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(1));
+        assertThat(cache.execute("POST /items", 2, "key", "body", calls::incrementAndGet), equalTo(2));
+        assertThat(cache.execute("POST /items", 1, null, "body", calls::incrementAndGet), equalTo(3));
+    }
+
+    @Test
+    void shouldRejectRepeatedKeyWithAnotherBody() {
+        cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet);
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> cache.execute("POST /items", 1, "key", "other", calls::incrementAndGet));
+        assertThat(exception.getMessage(), equalTo("Idempotency-Key=key уже использован с другим телом запроса"));
+        assertThat(calls.get(), equalTo(1));
+    }
+
+    @Test
+    void shouldNotCacheFailuresAndExpiredOrEvictedKeys() {
+        assertThrows(ValidationException.class, () -> cache.execute("POST /items", 1, "key", "body", () -> {
+            throw new ValidationException("error");
+        }));
+        assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(1));
+        cache.execute("POST /items", 1, "second", "body", calls::incrementAndGet);
+        cache.execute("POST /items", 1, "third", "body", calls::incrementAndGet);
+        assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(4));
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        cache.execute("POST /items", 1, "expiring", "body", calls::incrementAndGet);
+        assertThat(cache.execute("POST /items", 1, "expiring", "body", calls::incrementAndGet), equalTo(6));
+    }
+
+    @Test
+    void shouldWaitForConcurrentRequestWithSameKey() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.execute("POST /bookings", 1, "key", "body", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return calls.incrementAndGet();
+            }));
+            started.await();
+            Future<Integer> second = executor.submit(() ->
+                    cache.execute("POST /bookings", 1, "key", "body", calls::incrementAndGet));
+            release.countDown();
+            assertThat(first.get(), equalTo(1));
+            assertThat(second.get(), equalTo(1));
+            assertThat(calls.get(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotCacheErrors() {
+        assertThrows(StackOverflowError.class, () -> cache.execute("POST /items", 1, "key", "body", () -> {
+            throw new StackOverflowError();
+        }));
+        assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(1));
+    }
+
+    @Test
+    void shouldStopWaitingForConcurrentRequestAfterTimeout() throws Exception {
+        ReflectionTestUtils.setField(cache, "waitTimeoutMillis", 50L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> cache.execute("POST /bookings", 1, "key", "body", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return calls.incrementAndGet();
+            }));
+            started.await();
+            ConflictException exception = assertThrows(ConflictException.class,
+                    () -> cache.execute("POST /bookings", 1, "key", "body", calls::incrementAndGet));
+            assertThat(exception.getMessage(), equalTo("Запрос с Idempotency-Key=key ещё выполняется"));
+            release.countDown();
+            assertThat(first.get(), equalTo(1));
+            assertThat(cache.execute("POST /bookings", 1, "key", "body", calls::incrementAndGet), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotEvictRequestInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> cache.execute("POST /items", 1, "key", "body", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return 100;
+            }));
+            started.await();
+            cache.execute("POST /items", 1, "second", "body", calls::incrementAndGet);
+            cache.execute("POST /items", 1, "third", "body", calls::incrementAndGet);
+            release.countDown();
+            assertThat(first.get(), equalTo(100));
+            assertThat(cache.execute("POST /items", 1, "key", "body", calls::incrementAndGet), equalTo(100));
+            assertThat(cache.execute("POST /items", 1, "second", "body", calls::incrementAndGet), equalTo(3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
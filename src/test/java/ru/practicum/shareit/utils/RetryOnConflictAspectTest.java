@@ -0,0 +1,52 @@
+package ru.practicum.shareit.utils;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ValidationException;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class RetryOnConflictAspectTest {
+    private final RetryOnConflictAspect aspect = new RetryOnConflictAspect();
+    private ProceedingJoinPoint joinPoint;
+    private RetryOnConflict retryOnConflict;
+
+    @BeforeEach
+    void beforeEach() {
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(mock(Signature.class));
+        retryOnConflict = mock(RetryOnConflict.class);
+        when(retryOnConflict.attempts()).thenReturn(3);
+    }
+
+    @Test
+    void shouldRetryAfterConflict() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L))
+                .thenReturn("ok");
+        assertThat(aspect.retry(joinPoint, retryOnConflict), equalTo("ok"));
+        verify(joinPoint, times(2)).proceed();
+    }
+
+    @Test
+    void shouldRethrowConflictWhenAttemptsExhausted() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> aspect.retry(joinPoint, retryOnConflict));
+        verify(joinPoint, times(3)).proceed();
+    }
+
+    @Test
+    void shouldNotRetryOtherExceptions() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new ValidationException("ошибка"));
+        assertThrows(ValidationException.class, () -> aspect.retry(joinPoint, retryOnConflict));
+        verify(joinPoint, times(1)).proceed();
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TimingWheelTest {
+    private final TimingWheel<String> wheel = new TimingWheel<>(10, 4, 1000);
+
+    @Test
+    void shouldExpireEntriesOnlyAfterTheirTickHasPassed() {
+        wheel.add("a", 1015);
+        wheel.add("b", 1025);
+        assertThat(wheel.advance(1015), empty());
+        assertThat(wheel.advance(1020), equalTo(List.of("a")));
+        assertThat(wheel.advance(1029), empty());
+        assertThat(wheel.advance(1030), equalTo(List.of("b")));
+        assertThat(wheel.size(), equalTo(0));
+    }
+
+    @Test
+    void shouldCascadeEntriesFromOverflowWheels() {
+        wheel.add("minute", 1000 + 60_000);
+        wheel.add("second", 1000 + 1_000);
+        wheel.add("hour", 1000 + 3_600_000);
+        assertThat(wheel.size(), equalTo(3));
+        assertThat(wheel.advance(1000 + 1_000), empty());
+        assertThat(wheel.advance(1000 + 1_010), equalTo(List.of("second")));
+        assertThat(wheel.advance(1000 + 59_990), empty());
+        assertThat(wheel.advance(1000 + 60_010), equalTo(List.of("minute")));
+        assertThat(wheel.advance(1000 + 3_599_990), empty());
+        assertThat(wheel.advance(1000 + 3_600_010), equalTo(List.of("hour")));
+        assertThat(wheel.size(), equalTo(0));
+    }
+
+    @Test
+    void shouldExpireEntriesFromThePastOnNextTick() {
+        wheel.advance(2000);
+        wheel.add("late", 1500);
+        assertThat(wheel.advance(2010), equalTo(List.of("late")));
+    }
+}